@@ -2,6 +2,7 @@ package com.cappymerida;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 
@@ -11,7 +12,10 @@ import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 public class PatienServiceApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(PatienServiceApplication.class, args);
+		SpringApplication application = new SpringApplication(PatienServiceApplication.class);
+		// Recorded steps are served by the actuator startup endpoint
+		application.setApplicationStartup(new BufferingApplicationStartup(4096));
+		application.run(args);
 	}
 
 }
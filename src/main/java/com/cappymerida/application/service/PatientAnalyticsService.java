@@ -0,0 +1,120 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.model.CohortQuery;
+import com.cappymerida.domain.model.CohortResult;
+import com.cappymerida.domain.model.PatientCohortRow;
+import com.cappymerida.domain.repository.PatientRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps a {@link PatientCohortStore} in sync with the patients table and answers
+ * cohort queries from it. Refreshes pull rows whose {@code updatedAt} is past the
+ * store's watermark minus a lookback window: {@code updatedAt} is stamped by the
+ * application before commit, so a transaction can commit a timestamp the previous
+ * refresh already moved past. Re-applying rows is idempotent by id.
+ * <p>
+ * Deletions, and changes committed later than the lookback allows for, never show
+ * up in that scan; a shrinking row count triggers an early rebuild and the store
+ * is rebuilt from scratch every reconcile interval regardless.
+ */
+@Service
+@Slf4j
+public class PatientAnalyticsService {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final PatientRepository patientRepository;
+    private final int pageSize;
+    private final Duration lookback;
+
+    private volatile PatientCohortStore store;
+
+    public PatientAnalyticsService(PatientRepository patientRepository,
+                                   @Value("${patients.analytics.refresh-page-size:10000}") int pageSize,
+                                   @Value("${patients.analytics.lookback:2m}") Duration lookback) {
+        this.patientRepository = patientRepository;
+        this.pageSize = pageSize;
+        this.lookback = lookback;
+    }
+
+    public Optional<CohortResult> queryCohorts(CohortQuery query) {
+        PatientCohortStore current = store;
+        if (current == null) {
+            log.debug("Cohort snapshot not loaded yet");
+            return Optional.empty();
+        }
+
+        long start = System.nanoTime();
+        CohortResult result = current.query(query, LocalDate.now());
+        log.debug("Cohort query over {} patients took {} ms",
+                current.size(), (System.nanoTime() - start) / 1_000_000);
+        return Optional.of(result);
+    }
+
+    @Scheduled(initialDelayString = "${patients.analytics.initial-delay:10s}",
+            fixedDelayString = "${patients.analytics.refresh-interval:30s}")
+    public synchronized void refresh() {
+        PatientCohortStore current = store;
+        if (current == null) {
+            store = rebuild();
+            return;
+        }
+
+        int applied = catchUp(current);
+        if (applied > 0) {
+            log.debug("Applied {} patient rows (including lookback) to cohort snapshot", applied);
+        }
+
+        // Deleted patients never show up in the updatedAt scan
+        if (current.size() > patientRepository.count()) {
+            log.info("Cohort snapshot has deleted patients, rebuilding");
+            store = rebuild();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${patients.analytics.reconcile-interval:1h}",
+            fixedDelayString = "${patients.analytics.reconcile-interval:1h}")
+    public synchronized void reconcile() {
+        if (store != null) {
+            store = rebuild();
+        }
+    }
+
+    private PatientCohortStore rebuild() {
+        long start = System.nanoTime();
+        PatientCohortStore fresh = new PatientCohortStore((int) patientRepository.count());
+        catchUp(fresh);
+        log.info("Cohort snapshot built with {} patients in {} ms",
+                fresh.size(), (System.nanoTime() - start) / 1_000_000);
+        return fresh;
+    }
+
+    private int catchUp(PatientCohortStore target) {
+        int applied = 0;
+        LocalDateTime since = target.watermark() != null ? target.watermark().minus(lookback) : EPOCH;
+        String lastId = "";
+        List<PatientCohortRow> rows;
+        do {
+            rows = patientRepository.findCohortRowsAfter(since, lastId, Limit.of(pageSize));
+            target.upsert(rows);
+            applied += rows.size();
+            if (!rows.isEmpty()) {
+                PatientCohortRow last = rows.get(rows.size() - 1);
+                since = last.updatedAt();
+                lastId = last.id();
+            }
+        } while (rows.size() == pageSize);
+        return applied;
+    }
+
+}
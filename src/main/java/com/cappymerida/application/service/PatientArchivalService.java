@@ -0,0 +1,62 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.repository.PatientRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Moves patients that have been inactive or deceased for longer than the
+ * retention window into the archive partition. Each batch commits on its own so
+ * locks stay short and a failed run resumes where it stopped.
+ */
+@Service
+@Slf4j
+public class PatientArchivalService {
+
+    private final PatientRepository patientRepository;
+    private final Duration inactiveAfter;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Counter archivedCounter;
+
+    public PatientArchivalService(PatientRepository patientRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${patients.archival.inactive-after:365d}") Duration inactiveAfter,
+                                  @Value("${patients.archival.batch-size:1000}") int batchSize,
+                                  @Value("${patients.archival.max-batches-per-run:500}") int maxBatchesPerRun) {
+        this.patientRepository = patientRepository;
+        this.inactiveAfter = inactiveAfter;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.archivedCounter = Counter.builder("patients.archived")
+                .description("Patients moved to the archive partition")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${patients.archival.cron:0 30 2 * * *}")
+    public void archiveInactivePatients() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(inactiveAfter);
+        log.info("Archiving patients inactive since before {}", cutoff);
+
+        long total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int archived = patientRepository.archiveInactiveBefore(cutoff, now, batchSize);
+            archivedCounter.increment(archived);
+            total += archived;
+            if (archived < batchSize) {
+                break;
+            }
+        }
+
+        log.info("Archived {} patients", total);
+    }
+
+}
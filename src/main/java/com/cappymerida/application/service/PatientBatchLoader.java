@@ -0,0 +1,164 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.repository.PatientRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Collects single-id patient lookups that arrive within a short window and
+ * resolves them with one {@code WHERE id IN (...)} query. Concurrent lookups
+ * for the same id within a window share a single future.
+ */
+@Component
+@Slf4j
+public class PatientBatchLoader implements DisposableBean {
+
+    private final PatientRepository patientRepository;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService executor;
+
+    private final Object lock = new Object();
+    private Map<String, CompletableFuture<Optional<Patient>>> pending = new HashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean shutdown;
+
+    public PatientBatchLoader(PatientRepository patientRepository,
+                              @Value("${patients.batch-loader.window:2ms}") Duration window,
+                              @Value("${patients.batch-loader.max-batch-size:200}") int maxBatchSize,
+                              @Value("${patients.batch-loader.threads:2}") int threads) {
+        this.patientRepository = patientRepository;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.executor = Executors.newScheduledThreadPool(threads, daemonThreadFactory());
+    }
+
+    public Optional<Patient> load(String id) {
+        try {
+            return loadAsync(id).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<Optional<Patient>> loadAsync(String id) {
+        CompletableFuture<Optional<Patient>> future;
+        Map<String, CompletableFuture<Optional<Patient>>> fullBatch = null;
+
+        synchronized (lock) {
+            if (shutdown) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Patient batch loader is shut down"));
+            }
+
+            future = pending.get(id);
+            if (future != null) {
+                return future;
+            }
+
+            future = new CompletableFuture<>();
+            boolean firstInWindow = pending.isEmpty();
+            pending.put(id, future);
+
+            if (pending.size() >= maxBatchSize) {
+                fullBatch = takePending();
+            } else if (firstInWindow) {
+                Map<String, CompletableFuture<Optional<Patient>>> window = pending;
+                scheduledFlush = executor.schedule(() -> flushPending(window), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        if (fullBatch != null) {
+            Map<String, CompletableFuture<Optional<Patient>>> batch = fullBatch;
+            try {
+                executor.execute(() -> dispatch(batch));
+            } catch (RejectedExecutionException e) {
+                // Shut down concurrently; the callers must not wait forever
+                batch.values().forEach(pendingFuture -> pendingFuture.completeExceptionally(e));
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Flushes the window the timer was scheduled for; a window already flushed
+     * because it filled up leaves the next one alone.
+     */
+    private void flushPending(Map<String, CompletableFuture<Optional<Patient>>> window) {
+        Map<String, CompletableFuture<Optional<Patient>>> batch;
+        synchronized (lock) {
+            if (pending != window || pending.isEmpty()) {
+                return;
+            }
+            batch = takePending();
+        }
+        dispatch(batch);
+    }
+
+    // Caller holds the lock
+    private Map<String, CompletableFuture<Optional<Patient>>> takePending() {
+        Map<String, CompletableFuture<Optional<Patient>>> batch = pending;
+        pending = new HashMap<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(Map<String, CompletableFuture<Optional<Patient>>> batch) {
+        log.debug("Loading batch of {} patients", batch.size());
+        try {
+            Map<String, Patient> found = patientRepository.findAllById(batch.keySet()).stream()
+                    .collect(Collectors.toMap(Patient::getId, Function.identity()));
+            batch.forEach((id, future) -> future.complete(Optional.ofNullable(found.get(id))));
+        } catch (RuntimeException e) {
+            log.error("Batch patient load failed for {} ids", batch.size(), e);
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        Map<String, CompletableFuture<Optional<Patient>>> batch;
+        synchronized (lock) {
+            shutdown = true;
+            batch = takePending();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+        executor.shutdown();
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "patient-batch-loader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+}
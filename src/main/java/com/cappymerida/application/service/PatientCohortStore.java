@@ -0,0 +1,505 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.enums.CohortDimension;
+import com.cappymerida.domain.enums.Gender;
+import com.cappymerida.domain.enums.MaritalStatus;
+import com.cappymerida.domain.enums.Status;
+import com.cappymerida.domain.model.CohortQuery;
+import com.cappymerida.domain.model.CohortResult;
+import com.cappymerida.domain.model.PatientCohortRow;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Columnar, in-memory copy of the demographic fields used for cohort queries.
+ * One slot per patient across primitive arrays: date of birth as epoch day,
+ * enums as {@code ordinal + 1} bytes (0 = unknown) and cities dictionary-encoded.
+ * Queries scan the arrays in parallel chunks under a read lock; upserts take the
+ * write lock.
+ */
+public class PatientCohortStore {
+
+    private static final int AGE_BAND_YEARS = 10;
+    // Bands 0-9 ... 80-89, then 90+; code 0 is "unknown date of birth"
+    private static final int AGE_BANDS = 10;
+    private static final int NO_DOB = Integer.MIN_VALUE;
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    // Beyond one counter per row of a chunk most slots of a dense array stay zero
+    private static final int DENSE_GROUP_LIMIT = CHUNK_SIZE;
+
+    private static final Gender[] GENDERS = Gender.values();
+    private static final MaritalStatus[] MARITAL_STATUSES = MaritalStatus.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RowIndex rowIndex;
+
+    private final Map<String, Integer> cityCodes = new HashMap<>();
+    private final List<String> cityNames = new ArrayList<>();
+
+    private int size;
+    private int[] dobEpochDay;
+    private byte[] gender;
+    private byte[] maritalStatus;
+    private byte[] status;
+    private int[] city;
+
+    private LocalDateTime watermark;
+    private String watermarkId;
+
+    public PatientCohortStore(int expectedRows) {
+        int capacity = Math.max(expectedRows, 1024);
+        this.rowIndex = new RowIndex(capacity);
+        this.dobEpochDay = new int[capacity];
+        this.gender = new byte[capacity];
+        this.maritalStatus = new byte[capacity];
+        this.status = new byte[capacity];
+        this.city = new int[capacity];
+        this.cityNames.add(null);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Last (updatedAt, id) applied; the next refresh continues after it. */
+    public LocalDateTime watermark() {
+        return watermark;
+    }
+
+    public String watermarkId() {
+        return watermarkId;
+    }
+
+    /**
+     * Inserts or overwrites rows, in (updatedAt, id) order. Re-applying rows already
+     * seen is harmless, and the watermark never moves back.
+     */
+    public void upsert(List<PatientCohortRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (PatientCohortRow row : rows) {
+                int slot = rowIndex.get(row.id());
+                if (slot < 0) {
+                    ensureCapacity(size + 1);
+                    slot = size++;
+                    rowIndex.put(row.id(), slot);
+                }
+                dobEpochDay[slot] = row.dateOfBirth() != null ? (int) row.dateOfBirth().toEpochDay() : NO_DOB;
+                gender[slot] = code(row.gender());
+                maritalStatus[slot] = code(row.maritalStatus());
+                status[slot] = code(row.status());
+                city[slot] = cityCode(row.city());
+            }
+
+            PatientCohortRow last = rows.get(rows.size() - 1);
+            if (watermark == null || last.updatedAt().isAfter(watermark)
+                    || (last.updatedAt().isEqual(watermark) && last.id().compareTo(watermarkId) > 0)) {
+                watermark = last.updatedAt();
+                watermarkId = last.id();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public CohortResult query(CohortQuery query, LocalDate today) {
+        lock.readLock().lock();
+        try {
+            return new Scan(query, today).run();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= dobEpochDay.length) {
+            return;
+        }
+        int capacity = Math.max(required, dobEpochDay.length + (dobEpochDay.length >> 1));
+        dobEpochDay = Arrays.copyOf(dobEpochDay, capacity);
+        gender = Arrays.copyOf(gender, capacity);
+        maritalStatus = Arrays.copyOf(maritalStatus, capacity);
+        status = Arrays.copyOf(status, capacity);
+        city = Arrays.copyOf(city, capacity);
+    }
+
+    private int cityCode(String name) {
+        if (name == null || name.isBlank()) {
+            return 0;
+        }
+        return cityCodes.computeIfAbsent(normalizeCity(name), key -> {
+            cityNames.add(name.trim());
+            return cityNames.size() - 1;
+        });
+    }
+
+    private static String normalizeCity(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static byte code(Enum<?> value) {
+        return value == null ? 0 : (byte) (value.ordinal() + 1);
+    }
+
+    /**
+     * One query execution. Group keys are mixed-radix numbers over the selected
+     * dimensions, so small key spaces aggregate into plain {@code long[]} counters.
+     */
+    private final class Scan {
+
+        private final boolean byAgeBand;
+        private final boolean byGender;
+        private final boolean byMarital;
+        private final boolean byCity;
+        private final boolean byStatus;
+
+        private final int cityRadix = cityNames.size();
+        private final long groups;
+
+        private final boolean[] genderAllowed;
+        private final boolean[] maritalAllowed;
+        private final boolean[] statusAllowed;
+        private final boolean[] cityAllowed;
+        private final long minDob;
+        private final long maxDob;
+        private final int[] bandBounds = new int[AGE_BANDS - 1];
+
+        Scan(CohortQuery query, LocalDate today) {
+            byAgeBand = query.groupBy().contains(CohortDimension.AGE_BAND);
+            byGender = query.groupBy().contains(CohortDimension.GENDER);
+            byMarital = query.groupBy().contains(CohortDimension.MARITAL_STATUS);
+            byCity = query.groupBy().contains(CohortDimension.CITY);
+            byStatus = query.groupBy().contains(CohortDimension.STATUS);
+
+            groups = (byAgeBand ? AGE_BANDS + 1L : 1L)
+                    * (byGender ? GENDERS.length + 1L : 1L)
+                    * (byMarital ? MARITAL_STATUSES.length + 1L : 1L)
+                    * (byCity ? cityRadix : 1L)
+                    * (byStatus ? STATUSES.length + 1L : 1L);
+
+            genderAllowed = allowed(query.genders(), GENDERS.length);
+            maritalAllowed = allowed(query.maritalStatuses(), MARITAL_STATUSES.length);
+            statusAllowed = allowed(query.statuses(), STATUSES.length);
+            cityAllowed = allowedCities(query.cities());
+
+            // age >= minAge  <=>  dob <= today - minAge years
+            // age <= maxAge  <=>  dob >  today - (maxAge + 1) years
+            minDob = query.maxAge() != null ? today.minusYears(query.maxAge() + 1L).toEpochDay() + 1 : Long.MIN_VALUE;
+            maxDob = query.minAge() != null ? today.minusYears(query.minAge()).toEpochDay() : Long.MAX_VALUE;
+
+            for (int band = 1; band < AGE_BANDS; band++) {
+                bandBounds[band - 1] = (int) today.minusYears((long) band * AGE_BAND_YEARS).toEpochDay();
+            }
+        }
+
+        CohortResult run() {
+            int rows = size;
+            int chunks = Math.max(1, (rows + CHUNK_SIZE - 1) / CHUNK_SIZE);
+
+            Map<Long, Long> counts = groups <= DENSE_GROUP_LIMIT
+                    ? scanDense(rows, chunks)
+                    : scanSparse(rows, chunks);
+
+            long total = 0;
+            List<CohortResult.Bucket> buckets = new ArrayList<>(counts.size());
+            for (Map.Entry<Long, Long> entry : counts.entrySet()) {
+                total += entry.getValue();
+                buckets.add(new CohortResult.Bucket(decode(entry.getKey()), entry.getValue()));
+            }
+            buckets.sort((a, b) -> Long.compare(b.count(), a.count()));
+            return new CohortResult(total, buckets, watermark);
+        }
+
+        // One counter array per worker, not per chunk: each worker scans a contiguous run of chunks
+        private Map<Long, Long> scanDense(int rows, int chunks) {
+            int width = (int) groups;
+            int workers = Math.min(chunks, Runtime.getRuntime().availableProcessors());
+            long[] merged = IntStream.range(0, workers)
+                    .parallel()
+                    .mapToObj(worker -> {
+                        long[] counts = new long[width];
+                        int from = (int) ((long) chunks * worker / workers) * CHUNK_SIZE;
+                        int end = Math.min(rows, (int) ((long) chunks * (worker + 1) / workers) * CHUNK_SIZE);
+                        for (int row = from; row < end; row++) {
+                            if (matches(row)) {
+                                counts[(int) key(row)]++;
+                            }
+                        }
+                        return counts;
+                    })
+                    .reduce((a, b) -> {
+                        for (int i = 0; i < a.length; i++) {
+                            a[i] += b[i];
+                        }
+                        return a;
+                    })
+                    .orElseGet(() -> new long[width]);
+
+            Map<Long, Long> counts = new HashMap<>();
+            for (int i = 0; i < merged.length; i++) {
+                if (merged[i] > 0) {
+                    counts.put((long) i, merged[i]);
+                }
+            }
+            return counts;
+        }
+
+        private Map<Long, Long> scanSparse(int rows, int chunks) {
+            return IntStream.range(0, chunks)
+                    .parallel()
+                    .mapToObj(chunk -> {
+                        Map<Long, Long> counts = new HashMap<>();
+                        int end = Math.min(rows, (chunk + 1) * CHUNK_SIZE);
+                        for (int row = chunk * CHUNK_SIZE; row < end; row++) {
+                            if (matches(row)) {
+                                counts.merge(key(row), 1L, Long::sum);
+                            }
+                        }
+                        return counts;
+                    })
+                    .reduce((a, b) -> {
+                        b.forEach((key, count) -> a.merge(key, count, Long::sum));
+                        return a;
+                    })
+                    .orElseGet(HashMap::new);
+        }
+
+        private boolean matches(int row) {
+            if (genderAllowed != null && !genderAllowed[gender[row]]) {
+                return false;
+            }
+            if (maritalAllowed != null && !maritalAllowed[maritalStatus[row]]) {
+                return false;
+            }
+            if (statusAllowed != null && !statusAllowed[status[row]]) {
+                return false;
+            }
+            if (cityAllowed != null && !cityAllowed[city[row]]) {
+                return false;
+            }
+            int dob = dobEpochDay[row];
+            if (minDob != Long.MIN_VALUE || maxDob != Long.MAX_VALUE) {
+                return dob != NO_DOB && dob >= minDob && dob <= maxDob;
+            }
+            return true;
+        }
+
+        private long key(int row) {
+            long key = 0;
+            if (byAgeBand) {
+                key = ageBand(dobEpochDay[row]);
+            }
+            if (byGender) {
+                key = key * (GENDERS.length + 1) + gender[row];
+            }
+            if (byMarital) {
+                key = key * (MARITAL_STATUSES.length + 1) + maritalStatus[row];
+            }
+            if (byCity) {
+                key = key * cityRadix + city[row];
+            }
+            if (byStatus) {
+                key = key * (STATUSES.length + 1) + status[row];
+            }
+            return key;
+        }
+
+        private int ageBand(int dob) {
+            if (dob == NO_DOB) {
+                return 0;
+            }
+            // Bounds are descending; every bound the birth date is on or before adds a band
+            int band = 1;
+            for (int bound : bandBounds) {
+                if (dob > bound) {
+                    break;
+                }
+                band++;
+            }
+            return band;
+        }
+
+        private Map<CohortDimension, String> decode(long key) {
+            Map<CohortDimension, String> dimensions = new EnumMap<>(CohortDimension.class);
+            if (byStatus) {
+                dimensions.put(CohortDimension.STATUS, label(STATUSES, (int) (key % (STATUSES.length + 1))));
+                key /= STATUSES.length + 1;
+            }
+            if (byCity) {
+                dimensions.put(CohortDimension.CITY, cityNames.get((int) (key % cityRadix)));
+                key /= cityRadix;
+            }
+            if (byMarital) {
+                dimensions.put(CohortDimension.MARITAL_STATUS,
+                        label(MARITAL_STATUSES, (int) (key % (MARITAL_STATUSES.length + 1))));
+                key /= MARITAL_STATUSES.length + 1;
+            }
+            if (byGender) {
+                dimensions.put(CohortDimension.GENDER, label(GENDERS, (int) (key % (GENDERS.length + 1))));
+                key /= GENDERS.length + 1;
+            }
+            if (byAgeBand) {
+                dimensions.put(CohortDimension.AGE_BAND, ageBandLabel((int) key));
+            }
+            return dimensions;
+        }
+
+        private boolean[] allowedCities(Collection<String> cities) {
+            if (cities == null || cities.isEmpty()) {
+                return null;
+            }
+            boolean[] allowed = new boolean[cityRadix];
+            for (String name : cities) {
+                Integer code = cityCodes.get(normalizeCity(name));
+                if (code != null) {
+                    allowed[code] = true;
+                }
+            }
+            return allowed;
+        }
+
+        private static boolean[] allowed(Collection<? extends Enum<?>> values, int constants) {
+            if (values == null || values.isEmpty()) {
+                return null;
+            }
+            boolean[] allowed = new boolean[constants + 1];
+            values.forEach(value -> allowed[value.ordinal() + 1] = true);
+            return allowed;
+        }
+
+        private static String label(Enum<?>[] constants, int code) {
+            return code == 0 ? null : constants[code - 1].name();
+        }
+
+        private static String ageBandLabel(int band) {
+            if (band == 0) {
+                return null;
+            }
+            int from = (band - 1) * AGE_BAND_YEARS;
+            return band == AGE_BANDS ? from + "+" : from + "-" + (from + AGE_BAND_YEARS - 1);
+        }
+
+    }
+
+    /**
+     * id to slot lookup. Patient ids are UUID strings, which are kept as two longs in
+     * an open-addressing table instead of a {@code HashMap<String, Integer>} entry per
+     * patient; anything that does not parse as a UUID falls back to a regular map.
+     */
+    private static final class RowIndex {
+
+        private static final int EMPTY = -1;
+
+        private long[] high;
+        private long[] low;
+        private int[] slots;
+        private int mask;
+        private int count;
+
+        private final Map<String, Integer> other = new HashMap<>();
+
+        RowIndex(int expected) {
+            allocate(Integer.highestOneBit(Math.max(expected * 4 / 3, 16)) << 1);
+        }
+
+        int get(String id) {
+            UUID uuid = parseUuid(id);
+            if (uuid == null) {
+                return other.getOrDefault(id, EMPTY);
+            }
+            long hi = uuid.getMostSignificantBits();
+            long lo = uuid.getLeastSignificantBits();
+            for (int i = hash(hi, lo) & mask; slots[i] != EMPTY; i = (i + 1) & mask) {
+                if (high[i] == hi && low[i] == lo) {
+                    return slots[i];
+                }
+            }
+            return EMPTY;
+        }
+
+        void put(String id, int slot) {
+            UUID uuid = parseUuid(id);
+            if (uuid == null) {
+                other.put(id, slot);
+                return;
+            }
+            if ((count + 1) * 4L > slots.length * 3L) {
+                grow();
+            }
+            insert(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), slot);
+            count++;
+        }
+
+        private void insert(long hi, long lo, int slot) {
+            int i = hash(hi, lo) & mask;
+            while (slots[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            high[i] = hi;
+            low[i] = lo;
+            slots[i] = slot;
+        }
+
+        private void grow() {
+            long[] oldHigh = high;
+            long[] oldLow = low;
+            int[] oldSlots = slots;
+            allocate(oldSlots.length << 1);
+            for (int i = 0; i < oldSlots.length; i++) {
+                if (oldSlots[i] != EMPTY) {
+                    insert(oldHigh[i], oldLow[i], oldSlots[i]);
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            high = new long[capacity];
+            low = new long[capacity];
+            slots = new int[capacity];
+            Arrays.fill(slots, EMPTY);
+            mask = capacity - 1;
+        }
+
+        private static int hash(long hi, long lo) {
+            long h = (hi ^ lo) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        private static UUID parseUuid(String id) {
+            if (id.length() != 36 || id.charAt(8) != '-' || id.charAt(13) != '-'
+                    || id.charAt(18) != '-' || id.charAt(23) != '-') {
+                return null;
+            }
+            try {
+                return UUID.fromString(id);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+    }
+
+}
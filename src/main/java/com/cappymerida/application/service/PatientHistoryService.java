@@ -0,0 +1,153 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.model.ContactInfo;
+import com.cappymerida.domain.model.Demographics;
+import com.cappymerida.domain.model.EmergencyContact;
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.model.PatientFieldChange;
+import com.cappymerida.domain.model.PatientHistoryEntry;
+import com.cappymerida.domain.records.PatientChangedEvent;
+import com.cappymerida.domain.repository.PatientHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PatientHistoryService {
+
+    private static final String SSN_FIELD = "demographics.socialSecurityNumber";
+    private static final String REDACTED = "***";
+
+    private final PatientHistoryRepository historyRepository;
+    private final PatientHistoryWriter historyWriter;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Flattens the tracked fields of a patient so that two states can be diffed.
+     * Take the snapshot before mutating the entity.
+     */
+    public static Map<String, String> snapshot(Patient patient) {
+        Map<String, String> fields = new LinkedHashMap<>();
+
+        Demographics demographics = patient.getDemographics();
+        if (demographics != null) {
+            fields.put("demographics.firstName", demographics.getFirstName());
+            fields.put("demographics.lastName", demographics.getLastName());
+            fields.put("demographics.middleName", demographics.getMiddleName());
+            fields.put("demographics.dateOfBirth", Objects.toString(demographics.getDateOfBirth(), null));
+            fields.put("demographics.gender", Objects.toString(demographics.getGender(), null));
+            fields.put(SSN_FIELD, demographics.getSocialSecurityNumber());
+            fields.put("demographics.preferredLanguage", demographics.getPreferredLanguage());
+            fields.put("demographics.maritalStatus", Objects.toString(demographics.getMaritalStatus(), null));
+        }
+
+        ContactInfo contactInfo = patient.getContactInfo();
+        if (contactInfo != null) {
+            fields.put("contactInfo.email", contactInfo.getEmail());
+            fields.put("contactInfo.phoneNumber", contactInfo.getPhoneNumber());
+            fields.put("contactInfo.alternatePhoneNumber", contactInfo.getAlternatePhoneNumber());
+            fields.put("contactInfo.street", contactInfo.getStreet());
+            fields.put("contactInfo.city", contactInfo.getCity());
+            fields.put("contactInfo.state", contactInfo.getState());
+            fields.put("contactInfo.zipCode", contactInfo.getZipCode());
+            fields.put("contactInfo.country", contactInfo.getCountry());
+        }
+
+        EmergencyContact emergencyContact = patient.getEmergencyContact();
+        if (emergencyContact != null) {
+            fields.put("emergencyContact.name", emergencyContact.getName());
+            fields.put("emergencyContact.phoneNumber", emergencyContact.getPhoneNumber());
+            fields.put("emergencyContact.email", emergencyContact.getEmail());
+            fields.put("emergencyContact.relationship", Objects.toString(emergencyContact.getRelationship(), null));
+        }
+
+        fields.put("status", Objects.toString(patient.getStatus(), null));
+        return fields;
+    }
+
+    public static List<PatientFieldChange> diff(Map<String, String> before, Map<String, String> after) {
+        List<PatientFieldChange> changes = new ArrayList<>();
+        Map<String, String> all = new LinkedHashMap<>(before);
+        after.forEach(all::putIfAbsent);
+
+        for (String field : all.keySet()) {
+            String oldValue = before.get(field);
+            String newValue = after.get(field);
+            if (!Objects.equals(oldValue, newValue)) {
+                // Record that the SSN changed, never the value itself
+                changes.add(SSN_FIELD.equals(field)
+                        ? new PatientFieldChange(field, redact(oldValue), redact(newValue))
+                        : new PatientFieldChange(field, oldValue, newValue));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Diffs the patient against its earlier snapshot and schedules the changes to be
+     * written once the surrounding transaction commits.
+     */
+    public void recordChanges(Patient patient, Map<String, String> before) {
+        recordChanges(patient, before, currentUser());
+    }
+
+    /**
+     * As {@link #recordChanges(Patient, Map)}, for changes made outside a user's
+     * request (the registration feed), attributed to {@code changedBy}.
+     */
+    public void recordChanges(Patient patient, Map<String, String> before, String changedBy) {
+        List<PatientFieldChange> changes = diff(before, snapshot(patient));
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        log.debug("Recording {} field changes for patient {}", changes.size(), patient.getId());
+        eventPublisher.publishEvent(new PatientChangedEvent(patient, changes, changedBy, LocalDateTime.now()));
+    }
+
+    @TransactionalEventListener
+    public void onPatientChanged(PatientChangedEvent event) {
+        // The version is read after commit so that it reflects this change
+        Patient patient = event.patient();
+        List<PatientHistoryEntry> entries = event.changes().stream()
+                .map(change -> new PatientHistoryEntry(
+                        null,
+                        patient.getId(),
+                        patient.getVersion(),
+                        change.field(),
+                        change.oldValue(),
+                        change.newValue(),
+                        event.changedBy(),
+                        event.changedAt()))
+                .toList();
+        historyWriter.enqueue(entries);
+    }
+
+    public List<PatientHistoryEntry> findHistory(String patientId, Long beforeId, int limit) {
+        log.debug("Finding history for patient: {}, before: {}", patientId, beforeId);
+        return historyRepository.findByPatientId(patientId, beforeId, limit);
+    }
+
+    private static String redact(String value) {
+        return value == null ? null : REDACTED;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+}
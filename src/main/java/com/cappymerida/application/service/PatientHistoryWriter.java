@@ -0,0 +1,184 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.model.PatientHistoryEntry;
+import com.cappymerida.domain.repository.PatientHistoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers history entries in a bounded queue and flushes them from a single
+ * background thread in multi-row inserts. When the queue is full the entries
+ * are written synchronously by the caller instead of being dropped. Callers run
+ * after the patient's transaction committed, so that write gets a transaction of
+ * its own; joining the finished one would leave it uncommitted.
+ * <p>
+ * A batch that fails to flush is retried with a growing pause, then written one
+ * entry per transaction through the same path as the overflow, so only entries
+ * the database rejects on their own are dropped.
+ */
+@Component
+@Slf4j
+public class PatientHistoryWriter implements InitializingBean, DisposableBean {
+
+    private final PatientHistoryRepository historyRepository;
+    private final TransactionTemplate overflowTransaction;
+    private final BlockingQueue<PatientHistoryEntry> queue;
+    private final int maxBatchSize;
+    private final long flushIntervalMillis;
+    private final int flushAttempts;
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSize;
+    private final Counter overflowCounter;
+    private final Counter retryCounter;
+    private final Counter droppedCounter;
+
+    private volatile boolean running = true;
+    private Thread worker;
+
+    public PatientHistoryWriter(PatientHistoryRepository historyRepository,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${patients.history.queue-capacity:10000}") int queueCapacity,
+                                @Value("${patients.history.max-batch-size:500}") int maxBatchSize,
+                                @Value("${patients.history.flush-interval:200ms}") Duration flushInterval,
+                                @Value("${patients.history.flush-attempts:3}") int flushAttempts) {
+        this.historyRepository = historyRepository;
+        this.overflowTransaction = new TransactionTemplate(transactionManager);
+        this.overflowTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.flushIntervalMillis = flushInterval.toMillis();
+        this.flushAttempts = Math.max(1, flushAttempts);
+
+        meterRegistry.gauge("patient.history.queue.depth", queue, BlockingQueue::size);
+        this.flushTimer = Timer.builder("patient.history.flush")
+                .description("Time to write one batch of history entries")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("patient.history.batch.size")
+                .description("History entries per flush")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("patient.history.overflow")
+                .description("History entries written synchronously because the queue was full")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("patient.history.flush.retries")
+                .description("Batch flushes retried after a failure")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("patient.history.dropped")
+                .description("History entries the database rejected even when written one at a time")
+                .register(meterRegistry);
+    }
+
+    public void enqueue(List<PatientHistoryEntry> entries) {
+        List<PatientHistoryEntry> overflow = null;
+        for (PatientHistoryEntry entry : entries) {
+            if (overflow != null || !queue.offer(entry)) {
+                if (overflow == null) {
+                    overflow = new ArrayList<>();
+                }
+                overflow.add(entry);
+            }
+        }
+
+        if (overflow != null) {
+            log.warn("History queue full, writing {} entries synchronously", overflow.size());
+            overflowCounter.increment(overflow.size());
+            List<PatientHistoryEntry> entriesToWrite = overflow;
+            overflowTransaction.executeWithoutResult(status -> historyRepository.insertAll(entriesToWrite));
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        worker = new Thread(this::run, "patient-history-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void run() {
+        List<PatientHistoryEntry> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PatientHistoryEntry first = running
+                        ? queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS)
+                        : queue.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Shutdown requested; the loop drains what is left without blocking
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PatientHistoryEntry> batch) {
+        batchSize.record(batch.size());
+        for (int attempt = 1; attempt <= flushAttempts; attempt++) {
+            try {
+                flushTimer.record(() -> historyRepository.insertAll(batch));
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Failed to write {} history entries (attempt {}/{})", batch.size(), attempt, flushAttempts, e);
+            }
+            if (attempt == flushAttempts || !pause(flushIntervalMillis * attempt)) {
+                break;
+            }
+            retryCounter.increment();
+        }
+        writeIndividually(batch);
+    }
+
+    private void writeIndividually(List<PatientHistoryEntry> batch) {
+        for (PatientHistoryEntry entry : batch) {
+            try {
+                overflowTransaction.executeWithoutResult(status -> historyRepository.insertAll(List.of(entry)));
+            } catch (RuntimeException e) {
+                log.error("Dropping history entry for patient {} field {}", entry.patientId(), entry.field(), e);
+                droppedCounter.increment();
+            }
+        }
+    }
+
+    /**
+     * Returns {@code false} when interrupted by shutdown; the caller then stops
+     * retrying so the remaining queue can still be drained.
+     */
+    private boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+}
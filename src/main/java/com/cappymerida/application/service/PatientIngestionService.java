@@ -0,0 +1,178 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.model.IngestionResult;
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.model.PatientIngestionRecord;
+import com.cappymerida.domain.repository.PatientUpsertRepository;
+import com.cappymerida.infrastructure.crypto.SsnCipher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies batches of upstream registrations. Safe to replay: every external id
+ * only moves forward in source version, and a batch is applied in one transaction.
+ * Records that would duplicate another patient's email or SSN are returned as
+ * rejected, not applied. Updates are recorded in the patient history like API
+ * edits, attributed to the feed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class PatientIngestionService {
+
+    // Stands in for the external id of patients created through the API; never a valid feed id
+    private static final String API_OWNER = "";
+    private static final String FEED_USER = "adt-feed";
+
+    private final PatientUpsertRepository patientUpsertRepository;
+    private final PatientWarmupSnapshot patientWarmupSnapshot;
+    private final PatientSearchCache patientSearchCache;
+    private final PatientHistoryService patientHistoryService;
+    private final PatientSsnRotationService patientSsnRotationService;
+    private final SsnCipher ssnCipher;
+
+    public IngestionResult upsertPatients(List<PatientIngestionRecord> records) {
+        if (records.isEmpty()) {
+            return new IngestionResult(0, 0, 0);
+        }
+
+        // One row per external id per statement: keep only the newest version in the batch
+        Map<String, PatientIngestionRecord> latest = new LinkedHashMap<>();
+        for (PatientIngestionRecord record : records) {
+            latest.merge(record.externalId(), record,
+                    (current, candidate) -> candidate.sourceVersion() > current.sourceVersion() ? candidate : current);
+        }
+
+        List<IngestionResult.Rejection> rejected = rejectDuplicateKeys(latest.values());
+        rejected.forEach(rejection -> latest.remove(rejection.record().externalId()));
+
+        List<PatientUpsertRepository.ClaimedKey> claimed =
+                patientUpsertRepository.claimKeys(new ArrayList<>(latest.values()));
+
+        List<Patient> inserts = new ArrayList<>();
+        List<Patient> updates = new ArrayList<>();
+        for (PatientUpsertRepository.ClaimedKey key : claimed) {
+            Patient patient = latest.get(key.externalId()).patient();
+            patient.setId(key.patientId());
+            (key.inserted() ? inserts : updates).add(patient);
+        }
+
+        patientUpsertRepository.insertPatients(inserts);
+        Map<String, Patient> previous = patientUpsertRepository.updatePatients(updates).stream()
+                .collect(Collectors.toMap(Patient::getId, Function.identity()));
+
+        // The external id still maps to a patient deleted through the API: nothing to update
+        List<Patient> updated = updates.stream()
+                .filter(patient -> previous.containsKey(patient.getId()))
+                .toList();
+        int missing = updates.size() - updated.size();
+        if (missing > 0) {
+            log.warn("{} feed updates matched no patient row", missing);
+        }
+
+        inserts.forEach(patient -> patientSearchCache.onPatientChanged(null, PatientSearchCache.SearchView.of(patient)));
+        for (Patient patient : updated) {
+            Patient old = previous.get(patient.getId());
+            patient.setCreatedAt(old.getCreatedAt());
+            patientWarmupSnapshot.evict(patient.getId());
+            patientSearchCache.onPatientChanged(PatientSearchCache.SearchView.of(old),
+                    PatientSearchCache.SearchView.of(patient));
+            patientHistoryService.recordChanges(patient, PatientHistoryService.snapshot(old), FEED_USER);
+        }
+
+        IngestionResult result = new IngestionResult(inserts.size(), updated.size(),
+                records.size() - claimed.size() - rejected.size(), missing, rejected);
+        log.debug("Ingested batch of {}: {}", records.size(), result);
+        return result;
+    }
+
+    /**
+     * Email and SSN identify a patient, but the partitioned patients table cannot
+     * carry a unique key on either. Records that would share one with another
+     * patient, stored or earlier in the batch, are rejected rather than applied;
+     * like {@link PatientService#createPatient}, this is a check before the write.
+     * While the SSN check is closed the whole batch is left to redelivery.
+     */
+    private List<IngestionResult.Rejection> rejectDuplicateKeys(Collection<PatientIngestionRecord> records) {
+        Map<PatientIngestionRecord, String> blindIndexes = new IdentityHashMap<>();
+        Set<String> emails = new HashSet<>();
+        for (PatientIngestionRecord record : records) {
+            String email = email(record);
+            if (email != null) {
+                emails.add(email);
+            }
+            String blindIndex = ssnCipher.blindIndex(record.patient().getDemographics().getSocialSecurityNumber());
+            if (blindIndex != null) {
+                blindIndexes.put(record, blindIndex);
+            }
+        }
+        if (!blindIndexes.isEmpty()) {
+            patientSsnRotationService.requireCompleteBlindIndex();
+        }
+
+        Map<String, Set<String>> emailOwners = new HashMap<>();
+        Map<String, Set<String>> ssnOwners = new HashMap<>();
+        for (PatientUpsertRepository.UniqueKeyOwner owner :
+                patientUpsertRepository.findUniqueKeyOwners(emails, new HashSet<>(blindIndexes.values()))) {
+            String ownerId = Objects.requireNonNullElse(owner.externalId(), API_OWNER);
+            if (owner.email() != null) {
+                emailOwners.computeIfAbsent(owner.email(), key -> new HashSet<>()).add(ownerId);
+            }
+            if (owner.ssnBlindIndex() != null) {
+                ssnOwners.computeIfAbsent(owner.ssnBlindIndex(), key -> new HashSet<>()).add(ownerId);
+            }
+        }
+
+        List<IngestionResult.Rejection> rejected = new ArrayList<>();
+        for (PatientIngestionRecord record : records) {
+            String email = email(record);
+            String blindIndex = blindIndexes.get(record);
+            String reason = ownedByOther(emailOwners, email, record.externalId())
+                    ? "Email already exists for another patient"
+                    : ownedByOther(ssnOwners, blindIndex, record.externalId())
+                    ? "Social Security Number already exists for another patient"
+                    : null;
+            if (reason != null) {
+                rejected.add(new IngestionResult.Rejection(record, reason));
+                continue;
+            }
+            // Later records in the batch now conflict with this one
+            if (email != null) {
+                emailOwners.computeIfAbsent(email, key -> new HashSet<>()).add(record.externalId());
+            }
+            if (blindIndex != null) {
+                ssnOwners.computeIfAbsent(blindIndex, key -> new HashSet<>()).add(record.externalId());
+            }
+        }
+        return rejected;
+    }
+
+    private static boolean ownedByOther(Map<String, Set<String>> owners, String key, String externalId) {
+        if (key == null) {
+            return false;
+        }
+        Set<String> ownerIds = owners.get(key);
+        return ownerIds != null && ownerIds.stream().anyMatch(ownerId -> !ownerId.equals(externalId));
+    }
+
+    private static String email(PatientIngestionRecord record) {
+        return record.patient().getContactInfo() != null ? record.patient().getContactInfo().getEmail() : null;
+    }
+
+}
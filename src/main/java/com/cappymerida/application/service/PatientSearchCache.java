@@ -0,0 +1,395 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.enums.PatientSortField;
+import com.cappymerida.domain.enums.Status;
+import com.cappymerida.domain.model.Patient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caches patient search results as id lists plus totals, keyed on the normalized
+ * search parameters; entities are resolved separately on every hit, so an edit
+ * that does not move a patient in or out of a result, or change its position,
+ * leaves the cached page valid.
+ * <p>
+ * Entries are tagged by status filter and by the first trigram of the search term.
+ * A patient change looks up the tags of its old and new state (its status and
+ * every trigram of its names and email) and drops only the entries whose
+ * membership or ordering it changes. Writes through other instances are only
+ * bounded by the TTL. Concurrent misses for the same key share one query.
+ */
+@Component
+@Slf4j
+public class PatientSearchCache {
+
+    private static final String ANY_STATUS = "*";
+    private static final int TRIGRAM = 3;
+
+    /**
+     * The fields of a patient that decide whether and where it appears in a search.
+     */
+    public record SearchView(Status status, String firstName, String lastName, String email,
+                             LocalDate dateOfBirth, LocalDateTime createdAt) {
+
+        public static SearchView of(Patient patient) {
+            return new SearchView(
+                    patient.getStatus(),
+                    patient.getDemographics() != null ? lower(patient.getDemographics().getFirstName()) : null,
+                    patient.getDemographics() != null ? lower(patient.getDemographics().getLastName()) : null,
+                    patient.getContactInfo() != null ? lower(patient.getContactInfo().getEmail()) : null,
+                    patient.getDemographics() != null ? patient.getDemographics().getDateOfBirth() : null,
+                    patient.getCreatedAt());
+        }
+
+    }
+
+    record SearchKey(Status status, String term, Pageable pageable) {}
+
+    record CachedPage(List<String> ids, long total, long expiresAt) {}
+
+    private static final class Load {
+        private final CompletableFuture<CachedPage> result = new CompletableFuture<>();
+        private volatile boolean invalidated;
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Map<SearchKey, CachedPage> entries = new ConcurrentHashMap<>();
+    private final Map<SearchKey, Load> loads = new ConcurrentHashMap<>();
+    private final Map<String, Set<SearchKey>> keysByTag = new ConcurrentHashMap<>();
+    private final Map<String, ShapeMetrics> shapes = new ConcurrentHashMap<>();
+    private final Counter invalidationCounter;
+
+    public PatientSearchCache(MeterRegistry meterRegistry,
+                              @Value("${patients.search-cache.enabled:true}") boolean enabled,
+                              @Value("${patients.search-cache.ttl:30s}") Duration ttl,
+                              @Value("${patients.search-cache.max-entries:10000}") int maxEntries) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+
+        Gauge.builder("patients.search.cache.entries", entries, Map::size)
+                .description("Search result pages currently cached")
+                .register(meterRegistry);
+        this.invalidationCounter = Counter.builder("patients.search.cache.invalidations")
+                .description("Cached search pages dropped because a patient change affected them")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the search through the cache. On a miss {@code query} runs once for all
+     * concurrent callers of the same key; on a hit only {@code resolve} runs, with
+     * the cached ids in result order.
+     */
+    public Page<Patient> search(Status status, String searchTerm, Pageable pageable,
+                                Supplier<Page<Patient>> query,
+                                Function<List<String>, List<Patient>> resolve) {
+        String term = searchTerm == null || searchTerm.isEmpty() ? null : lower(searchTerm);
+        SearchKey key = new SearchKey(status, term, pageable);
+        ShapeMetrics metrics = shapes.computeIfAbsent(shape(key), ShapeMetrics::new);
+
+        // LIKE wildcards in the term have no substring equivalent to invalidate by
+        if (!enabled || (term != null && (term.contains("%") || term.contains("_")))) {
+            metrics.bypasses.increment();
+            return query.get();
+        }
+
+        CachedPage cached = entries.get(key);
+        if (cached != null && cached.expiresAt() - System.nanoTime() > 0) {
+            metrics.hits.increment();
+            return toPage(cached, pageable, resolve);
+        }
+
+        Load load = new Load();
+        Load leader = loads.putIfAbsent(key, load);
+        if (leader != null) {
+            metrics.shared.increment();
+            return toPage(join(leader), pageable, resolve);
+        }
+
+        metrics.misses.increment();
+        try {
+            // Registered before the query runs, so a change committed meanwhile finds the load
+            for (String tag : tagsOf(key)) {
+                keysByTag.compute(tag, (t, keys) -> {
+                    Set<SearchKey> tagged = keys != null ? keys : ConcurrentHashMap.<SearchKey>newKeySet();
+                    tagged.add(key);
+                    return tagged;
+                });
+            }
+            Page<Patient> result = query.get();
+            CachedPage loaded = new CachedPage(
+                    result.getContent().stream().map(Patient::getId).toList(),
+                    result.getTotalElements(),
+                    System.nanoTime() + ttlNanos);
+
+            if (!load.invalidated && entries.size() < maxEntries) {
+                entries.put(key, loaded);
+                // An invalidation that raced the put may have missed the entry
+                if (load.invalidated) {
+                    entries.remove(key, loaded);
+                }
+            }
+            load.result.complete(loaded);
+            return result;
+        } catch (RuntimeException e) {
+            load.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    /**
+     * Drops the cached pages the change can affect, now and again once the
+     * surrounding transaction completes. {@code before} is null for a new patient,
+     * {@code after} for a deleted one.
+     */
+    public void onPatientChanged(SearchView before, SearchView after) {
+        if (enabled) {
+            nowAndAfterCompletion(() -> invalidate(before, after));
+        }
+    }
+
+    /**
+     * For bulk writes whose previous state is unknown.
+     */
+    public void invalidateAll() {
+        if (enabled) {
+            nowAndAfterCompletion(this::clear);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${patients.search-cache.ttl:30s}")
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        entries.entrySet().removeIf(entry -> entry.getValue().expiresAt() - now <= 0);
+        for (String tag : keysByTag.keySet()) {
+            keysByTag.computeIfPresent(tag, (t, keys) -> {
+                keys.removeIf(key -> !entries.containsKey(key) && !loads.containsKey(key));
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    private void nowAndAfterCompletion(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    private void clear() {
+        loads.values().forEach(load -> load.invalidated = true);
+        int dropped = entries.size();
+        entries.clear();
+        invalidationCounter.increment(dropped);
+    }
+
+    private void invalidate(SearchView before, SearchView after) {
+        Set<SearchKey> candidates = new HashSet<>();
+        for (SearchView view : new SearchView[]{before, after}) {
+            if (view != null) {
+                for (String tag : tagsOf(view)) {
+                    Set<SearchKey> keys = keysByTag.get(tag);
+                    if (keys != null) {
+                        candidates.addAll(keys);
+                    }
+                }
+            }
+        }
+
+        int dropped = 0;
+        for (SearchKey key : candidates) {
+            if (affects(key, before, after)) {
+                Load load = loads.get(key);
+                if (load != null) {
+                    load.invalidated = true;
+                }
+                if (entries.remove(key) != null) {
+                    dropped++;
+                }
+            }
+        }
+        if (dropped > 0) {
+            invalidationCounter.increment(dropped);
+            log.debug("Dropped {} cached search pages", dropped);
+        }
+    }
+
+    private static boolean affects(SearchKey key, SearchView before, SearchView after) {
+        boolean matchedBefore = matches(key, before);
+        boolean matchesAfter = matches(key, after);
+        if (matchedBefore != matchesAfter) {
+            return true;
+        }
+        return matchesAfter && sortChanged(key.pageable().getSort(), before, after);
+    }
+
+    private static boolean matches(SearchKey key, SearchView view) {
+        if (view == null || (key.status() != null && key.status() != view.status())) {
+            return false;
+        }
+        return key.term() == null
+                || contains(view.firstName(), key.term())
+                || contains(view.lastName(), key.term())
+                || contains(view.email(), key.term());
+    }
+
+    private static boolean sortChanged(Sort sort, SearchView before, SearchView after) {
+        for (Sort.Order order : sort) {
+            boolean changed = switch (order.getProperty()) {
+                case "createdAt" -> !Objects.equals(before.createdAt(), after.createdAt());
+                case "demographics.lastName" -> !Objects.equals(before.lastName(), after.lastName());
+                case "demographics.firstName" -> !Objects.equals(before.firstName(), after.firstName());
+                case "demographics.dateOfBirth" -> !Objects.equals(before.dateOfBirth(), after.dateOfBirth());
+                // updatedAt moves on every write; anything else is not known to be stable
+                default -> true;
+            };
+            if (changed) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> tagsOf(SearchKey key) {
+        String status = key.status() != null ? key.status().name() : ANY_STATUS;
+        if (key.term() == null) {
+            return List.of("s:" + status);
+        }
+        // A patient containing the term contains its first trigram
+        String trigram = key.term().length() >= TRIGRAM ? key.term().substring(0, TRIGRAM) : "";
+        return List.of("t:" + status + ":" + trigram);
+    }
+
+    private static Set<String> tagsOf(SearchView view) {
+        Set<String> tags = new HashSet<>();
+        for (String status : new String[]{view.status() != null ? view.status().name() : ANY_STATUS, ANY_STATUS}) {
+            tags.add("s:" + status);
+            tags.add("t:" + status + ":");
+            for (String text : new String[]{view.firstName(), view.lastName(), view.email()}) {
+                if (text != null) {
+                    for (int i = 0; i + TRIGRAM <= text.length(); i++) {
+                        tags.add("t:" + status + ":" + text.substring(i, i + TRIGRAM));
+                    }
+                }
+            }
+        }
+        return tags;
+    }
+
+    private static Page<Patient> toPage(CachedPage cached, Pageable pageable,
+                                        Function<List<String>, List<Patient>> resolve) {
+        return new PageImpl<>(resolve.apply(cached.ids()), pageable, cached.total());
+    }
+
+    private static CachedPage join(Load load) {
+        try {
+            return load.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static String shape(SearchKey key) {
+        String sort = key.pageable().getSort().stream()
+                .findFirst()
+                .map(order -> Arrays.stream(PatientSortField.values())
+                        .filter(field -> field.getProperty().equals(order.getProperty()))
+                        .map(PatientSortField::getParameter)
+                        .findFirst()
+                        .orElse("other"))
+                .orElse("unsorted");
+        return (key.status() != null ? key.status().name() : "ALL")
+                + "/" + (key.term() != null ? "term" : "all")
+                + "/" + sort;
+    }
+
+    private static boolean contains(String text, String term) {
+        return text != null && text.contains(term);
+    }
+
+    private static String lower(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * Request outcomes for one query shape (status filter, with or without a term,
+     * sort field), plus the resulting hit ratio.
+     */
+    private final class ShapeMetrics {
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder shared = new LongAdder();
+        private final LongAdder bypasses = new LongAdder();
+
+        private ShapeMetrics(String shape) {
+            register(shape, "hit", hits);
+            register(shape, "miss", misses);
+            register(shape, "shared", shared);
+            register(shape, "bypass", bypasses);
+            Gauge.builder("patients.search.cache.hit.ratio", this, ShapeMetrics::hitRatio)
+                    .description("Share of cacheable searches answered without running the query")
+                    .tag("shape", shape)
+                    .register(meterRegistry);
+        }
+
+        private void register(String shape, String result, LongAdder adder) {
+            FunctionCounter.builder("patients.search.cache.requests", adder, LongAdder::sum)
+                    .description("Patient searches by cache outcome")
+                    .tag("shape", shape)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+
+        private double hitRatio() {
+            double total = hits.sum() + misses.sum() + shared.sum();
+            return total == 0 ? 0 : (hits.sum() + shared.sum()) / total;
+        }
+
+    }
+
+}
@@ -1,17 +1,36 @@
 package com.cappymerida.application.service;
 
 import com.cappymerida.domain.enums.Status;
+import com.cappymerida.domain.exceptions.PatientConflictException;
+import com.cappymerida.domain.exceptions.PatientNotFoundException;
+import com.cappymerida.domain.exceptions.PatientVersionConflictException;
 import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.model.PatientHistoryEntry;
 import com.cappymerida.domain.model.PatientStatistics;
 import com.cappymerida.domain.repository.PatientRepository;
+import com.cappymerida.infrastructure.crypto.SsnCipher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -19,7 +38,16 @@ import java.util.Optional;
 @Transactional
 public class PatientService {
 
+    static final int MAX_LOOKUP_IDS = 200;
+
     private final PatientRepository patientRepository;
+    private final PatientBatchLoader patientBatchLoader;
+    private final PatientWarmupSnapshot patientWarmupSnapshot;
+    private final PatientSearchCache patientSearchCache;
+    private final PatientHistoryService patientHistoryService;
+    private final PatientUpdateRetry patientUpdateRetry;
+    private final PatientSsnRotationService patientSsnRotationService;
+    private final SsnCipher ssnCipher;
 
     public Patient createPatient(Patient patient) {
         log.info("Creating new patient: {}", patient.getDemographics().getFullName());
@@ -27,25 +55,54 @@ public class PatientService {
         // Validate unique email
         if (patient.getContactInfo().getEmail() != null &&
                 patientRepository.existsByContactInfoEmail(patient.getContactInfo().getEmail())) {
-            throw new IllegalArgumentException("Email already exists");
+            throw new PatientConflictException("Email already exists");
         }
 
         // Validate unique SSN
+        if (patient.getDemographics().getSocialSecurityNumber() != null) {
+            patientSsnRotationService.requireCompleteBlindIndex();
+        }
         if (patient.getDemographics().getSocialSecurityNumber() != null &&
-                patientRepository.existsByDemographicsSocialSecurityNumber(
-                        patient.getDemographics().getSocialSecurityNumber())) {
-            throw new IllegalArgumentException("Social Security Number already exists");
+                patientRepository.existsBySsnBlindIndex(
+                        ssnCipher.blindIndex(patient.getDemographics().getSocialSecurityNumber()))) {
+            throw new PatientConflictException("Social Security Number already exists");
         }
 
         Patient savedPatient = patientRepository.save(patient);
+        patientSearchCache.onPatientChanged(null, PatientSearchCache.SearchView.of(savedPatient));
         log.info("Patient created with ID: {}", savedPatient.getId());
         return savedPatient;
     }
 
-    @Transactional(readOnly = true)
+    // No surrounding transaction: the caller would otherwise hold a connection
+    // while waiting for the batch window to close.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<Patient> findPatientById(String id) {
         log.debug("Finding patient by ID: {}", id);
-        return patientRepository.findById(id);
+        Optional<Patient> warm = patientWarmupSnapshot.find(id);
+        return warm.isPresent() ? warm : patientBatchLoader.load(id);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Patient> findPatientsByIds(Collection<String> ids) {
+        Set<String> uniqueIds = ids.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        if (uniqueIds.size() > MAX_LOOKUP_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_LOOKUP_IDS + " ids can be looked up at once");
+        }
+
+        log.debug("Finding {} patients by ID", uniqueIds.size());
+
+        Map<String, Patient> found = patientRepository.findAllById(uniqueIds).stream()
+                .collect(Collectors.toMap(Patient::getId, Function.identity()));
+
+        // Keep the caller's ordering; ids that do not exist are simply omitted
+        return uniqueIds.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     @Transactional(readOnly = true)
@@ -60,69 +117,71 @@ public class PatientService {
         return patientRepository.findAll(pageable);
     }
 
-    @Transactional(readOnly = true)
+    // No surrounding transaction: callers waiting on a shared cache miss must not
+    // hold a connection, and the query and id resolution each run in their own.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Page<Patient> searchPatients(String searchTerm, Status status, Pageable pageable) {
         log.debug("Searching patients with term: {}, status: {}", searchTerm, status);
-        return patientRepository.findPatientsWithFilters(status, searchTerm, pageable);
+        return patientSearchCache.search(status, searchTerm, pageable,
+                () -> findMatching(searchTerm, status, pageable),
+                this::resolveInOrder);
     }
 
-    public Patient updatePatient(String id, Patient updatedPatient) {
-        log.info("Updating patient with ID: {}", id);
-
-        Patient existingPatient = patientRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Patient not found"));
-
-        // Validate unique email (excluding current patient)
-        if (updatedPatient.getContactInfo().getEmail() != null) {
-            var existingByEmail = patientRepository.findByContactInfoEmail(updatedPatient.getContactInfo().getEmail());
-            if (existingByEmail.isPresent() && !existingByEmail.get().getId().equals(id)) {
-                throw new IllegalArgumentException("Email already exists for another patient");
-            }
+    // One query per filter combination, so each gets a plan for exactly the predicates it has
+    private Page<Patient> findMatching(String searchTerm, Status status, Pageable pageable) {
+        boolean hasTerm = StringUtils.hasText(searchTerm);
+        if (status != null) {
+            return hasTerm
+                    ? patientRepository.findPatientsWithFilters(status, searchTerm, pageable)
+                    : patientRepository.findByStatus(status, pageable);
         }
+        return hasTerm
+                ? patientRepository.findAllPatientsWithFilters(searchTerm, pageable)
+                : patientRepository.findAll(pageable);
+    }
 
-        // Update fields
-        existingPatient.setDemographics(updatedPatient.getDemographics());
-        existingPatient.setContactInfo(updatedPatient.getContactInfo());
-        existingPatient.setEmergencyContact(updatedPatient.getEmergencyContact());
-
-        Patient savedPatient = patientRepository.save(existingPatient);
-        log.info("Patient updated: {}", savedPatient.getId());
-        return savedPatient;
+    // Each attempt runs in its own transaction (see PatientUpdateRetry)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Patient updatePatient(String id, Patient updatedPatient) {
+        log.info("Updating patient with ID: {}", id);
+        AtomicReference<Map<String, String>> firstRead = new AtomicReference<>();
+        return patientUpdateRetry.execute("update", id, () -> applyUpdate(id, updatedPatient, firstRead));
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void deactivatePatient(String id) {
         log.info("Deactivating patient with ID: {}", id);
-
-        Patient patient = patientRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Patient not found"));
-
-        patient.deactivate();
-        patientRepository.save(patient);
+        patientUpdateRetry.execute("deactivate", id, () -> applyStatusChange(id, Patient::deactivate));
         log.info("Patient deactivated: {}", id);
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void activatePatient(String id) {
         log.info("Activating patient with ID: {}", id);
-
-        Patient patient = patientRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Patient not found"));
-
-        patient.activate();
-        patientRepository.save(patient);
+        patientUpdateRetry.execute("activate", id, () -> applyStatusChange(id, Patient::activate));
         log.info("Patient activated: {}", id);
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void deletePatient(String id) {
         log.info("Deleting patient with ID: {}", id);
+        patientUpdateRetry.execute("delete", id, () -> {
+            Patient patient = patientRepository.findById(id)
+                    .orElseThrow(() -> new PatientNotFoundException(id));
 
-        if (!patientRepository.existsById(id)) {
-            throw new IllegalArgumentException("Patient not found");
-        }
-
-        patientRepository.deleteById(id);
+            patientRepository.delete(patient);
+            patientWarmupSnapshot.evict(id);
+            patientSearchCache.onPatientChanged(PatientSearchCache.SearchView.of(patient), null);
+            return null;
+        });
         log.info("Patient deleted: {}", id);
     }
 
+    @Transactional(readOnly = true)
+    public List<PatientHistoryEntry> findPatientHistory(String id, Long beforeId, int limit) {
+        return patientHistoryService.findHistory(id, beforeId, limit);
+    }
+
     @Transactional(readOnly = true)
     public PatientStatistics getStatistics() {
         log.debug("Calculating patient statistics");
@@ -135,4 +194,82 @@ public class PatientService {
         return new PatientStatistics(totalPatients, activePatients, inactivePatients, deceasedPatients);
     }
 
+    /**
+     * One attempt of a full update. The update replaces demographics, contact info
+     * and emergency contact, so it is only re-applied when whatever won the race
+     * left those untouched (e.g. a status change); otherwise one of the two edits
+     * would be silently lost and the caller gets the current version instead.
+     */
+    private Patient applyUpdate(String id, Patient updatedPatient, AtomicReference<Map<String, String>> firstRead) {
+        Patient existingPatient = patientRepository.findById(id)
+                .orElseThrow(() -> new PatientNotFoundException(id));
+
+        Map<String, String> before = PatientHistoryService.snapshot(existingPatient);
+        if (!firstRead.compareAndSet(null, before) && !updatedFields(firstRead.get()).equals(updatedFields(before))) {
+            throw new PatientVersionConflictException(id, existingPatient.getVersion());
+        }
+
+        // Validate unique email (excluding current patient)
+        if (updatedPatient.getContactInfo().getEmail() != null) {
+            var existingByEmail = patientRepository.findByContactInfoEmail(updatedPatient.getContactInfo().getEmail());
+            if (existingByEmail.isPresent() && !existingByEmail.get().getId().equals(id)) {
+                throw new PatientConflictException("Email already exists for another patient");
+            }
+        }
+
+        PatientSearchCache.SearchView searchedAs = PatientSearchCache.SearchView.of(existingPatient);
+
+        // Update fields
+        existingPatient.setDemographics(updatedPatient.getDemographics());
+        existingPatient.setContactInfo(updatedPatient.getContactInfo());
+        existingPatient.setEmergencyContact(updatedPatient.getEmergencyContact());
+
+        Patient savedPatient = patientRepository.save(existingPatient);
+        patientWarmupSnapshot.evict(id);
+        patientSearchCache.onPatientChanged(searchedAs, PatientSearchCache.SearchView.of(savedPatient));
+        patientHistoryService.recordChanges(savedPatient, before);
+        log.info("Patient updated: {}", savedPatient.getId());
+        return savedPatient;
+    }
+
+    // Status transitions are idempotent, so re-applying one to a fresh read is always safe
+    private Void applyStatusChange(String id, Consumer<Patient> transition) {
+        Patient patient = patientRepository.findById(id)
+                .orElseThrow(() -> new PatientNotFoundException(id));
+
+        Map<String, String> before = PatientHistoryService.snapshot(patient);
+        PatientSearchCache.SearchView searchedAs = PatientSearchCache.SearchView.of(patient);
+        transition.accept(patient);
+        patientRepository.save(patient);
+        patientWarmupSnapshot.evict(id);
+        patientSearchCache.onPatientChanged(searchedAs, PatientSearchCache.SearchView.of(patient));
+        patientHistoryService.recordChanges(patient, before);
+        return null;
+    }
+
+    private static Map<String, String> updatedFields(Map<String, String> snapshot) {
+        Map<String, String> fields = new HashMap<>(snapshot);
+        fields.remove("status");
+        return fields;
+    }
+
+    /**
+     * Loads the patients behind cached search ids, warm-up snapshot first, in the
+     * order the search returned them. Patients deleted since are omitted.
+     */
+    private List<Patient> resolveInOrder(List<String> ids) {
+        Map<String, Patient> found = new HashMap<>(ids.size() * 2);
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            patientWarmupSnapshot.find(id).ifPresentOrElse(patient -> found.put(id, patient), () -> missing.add(id));
+        }
+        if (!missing.isEmpty()) {
+            patientRepository.findAllById(missing).forEach(patient -> found.put(patient.getId(), patient));
+        }
+        return ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
 }
@@ -0,0 +1,360 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.enums.Gender;
+import com.cappymerida.domain.enums.MaritalStatus;
+import com.cappymerida.domain.enums.Relationship;
+import com.cappymerida.domain.enums.Status;
+import com.cappymerida.domain.model.ContactInfo;
+import com.cappymerida.domain.model.Demographics;
+import com.cappymerida.domain.model.EmergencyContact;
+import com.cappymerida.domain.model.Patient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32C;
+
+/**
+ * Compact binary file of patients, read back through a memory-mapped buffer.
+ * Opening a file only walks the entry headers (id, version, body position);
+ * a body is decoded each time its entry is read, so every caller gets its own
+ * {@link Patient} instance.
+ * <pre>
+ * header: magic:int format:int createdAt:long entries:int payloadLength:long crc32c:int
+ * entry:  idLength:short id:utf8 version:long bodyLength:int body
+ * </pre>
+ * The checksum covers the header fields before it as well as the payload, so a
+ * damaged {@code createdAt} or entry count is rejected like a damaged entry.
+ * Strings are a short byte length ({@code -1} for null) followed by UTF-8, enums
+ * are stored by name and times as UTC epoch values. The SSN goes through the
+ * caller's seal/open functions so it is not written in clear.
+ */
+final class PatientSnapshotFile {
+
+    private static final int MAGIC = 0x50575331; // "PWS1"
+    private static final int FORMAT = 2;
+    private static final int HEADER_BYTES = 32;
+    private static final int CRC_OFFSET = 28;
+    private static final long NO_VERSION = -1;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    record Entry(long version, int offset, int length) {}
+
+    private final MappedByteBuffer buffer;
+    private final Instant createdAt;
+    private final Map<String, Entry> entries;
+    private final UnaryOperator<String> openSsn;
+    private final int initialEntries;
+
+    private PatientSnapshotFile(MappedByteBuffer buffer, Instant createdAt, Map<String, Entry> entries,
+                                UnaryOperator<String> openSsn) {
+        this.buffer = buffer;
+        this.createdAt = createdAt;
+        this.entries = entries;
+        this.openSsn = openSsn;
+        this.initialEntries = entries.size();
+    }
+
+    /**
+     * Writes the patients to a temporary sibling and moves it over {@code path}, so
+     * a reader never maps a half-written file. Returns the file size in bytes.
+     */
+    static long write(Path path, Collection<Patient> patients, Instant createdAt,
+                      UnaryOperator<String> sealSsn) throws IOException {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(Math.max(1024, patients.size() * 512));
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(512);
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+
+        for (Patient patient : patients) {
+            bodyBytes.reset();
+            writeBody(body, patient, sealSsn);
+            body.flush();
+
+            byte[] id = patient.getId().getBytes(StandardCharsets.UTF_8);
+            payload.writeShort(id.length);
+            payload.write(id);
+            payload.writeLong(patient.getVersion() != null ? patient.getVersion() : NO_VERSION);
+            payload.writeInt(bodyBytes.size());
+            bodyBytes.writeTo(payload);
+        }
+        payload.flush();
+
+        byte[] content = payloadBytes.toByteArray();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC)
+                .putInt(FORMAT)
+                .putLong(createdAt.toEpochMilli())
+                .putInt(patients.size())
+                .putLong(content.length);
+        CRC32C crc = new CRC32C();
+        crc.update(header.array(), 0, CRC_OFFSET);
+        crc.update(content);
+        header.putInt((int) crc.getValue()).flip();
+
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.deleteIfExists(temp);
+
+        try (FileChannel channel = FileChannel.open(temp, Set.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE),
+                ownerOnly())) {
+            writeFully(channel, header);
+            writeFully(channel, ByteBuffer.wrap(content));
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return HEADER_BYTES + (long) content.length;
+    }
+
+    static PatientSnapshotFile open(Path path, UnaryOperator<String> openSsn) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Unexpected snapshot size " + size);
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT) {
+            throw new IOException("Not a patient snapshot or unsupported format");
+        }
+        Instant createdAt = Instant.ofEpochMilli(buffer.getLong(8));
+        int count = buffer.getInt(16);
+        long payloadLength = buffer.getLong(20);
+        if (HEADER_BYTES + payloadLength != buffer.capacity()) {
+            throw new IOException("Truncated snapshot");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(0, CRC_OFFSET));
+        crc.update(buffer.slice(HEADER_BYTES, (int) payloadLength));
+        if ((int) crc.getValue() != buffer.getInt(CRC_OFFSET)) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+
+        Map<String, Entry> entries = new ConcurrentHashMap<>(Math.max(16, count * 4 / 3 + 1));
+        int position = HEADER_BYTES;
+        for (int i = 0; i < count; i++) {
+            byte[] id = new byte[buffer.getShort(position)];
+            buffer.get(position + 2, id);
+            position += 2 + id.length;
+            long version = buffer.getLong(position);
+            int bodyLength = buffer.getInt(position + 8);
+            position += 12;
+            entries.put(new String(id, StandardCharsets.UTF_8), new Entry(version, position, bodyLength));
+            position += bodyLength;
+        }
+        return new PatientSnapshotFile(buffer, createdAt, entries, openSsn);
+    }
+
+    Instant createdAt() {
+        return createdAt;
+    }
+
+    long sizeBytes() {
+        return buffer.capacity();
+    }
+
+    int initialEntries() {
+        return initialEntries;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    Set<String> ids() {
+        return entries.keySet();
+    }
+
+    Long version(String id) {
+        Entry entry = entries.get(id);
+        return entry == null || entry.version() == NO_VERSION ? null : entry.version();
+    }
+
+    boolean contains(String id) {
+        return entries.containsKey(id);
+    }
+
+    boolean remove(String id) {
+        return entries.remove(id) != null;
+    }
+
+    Patient read(String id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        // slice() leaves the shared buffer's position alone, so concurrent reads are safe
+        ByteBuffer body = buffer.slice(entry.offset(), entry.length());
+        Patient patient = readBody(body, openSsn);
+        patient.setId(id);
+        patient.setVersion(entry.version() == NO_VERSION ? null : entry.version());
+        return patient;
+    }
+
+    private static void writeBody(DataOutputStream out, Patient patient, UnaryOperator<String> sealSsn)
+            throws IOException {
+        Demographics demographics = patient.getDemographics();
+        out.writeBoolean(demographics != null);
+        if (demographics != null) {
+            writeString(out, demographics.getFirstName());
+            writeString(out, demographics.getLastName());
+            writeString(out, demographics.getMiddleName());
+            out.writeLong(demographics.getDateOfBirth() != null ? demographics.getDateOfBirth().toEpochDay() : NO_TIME);
+            writeString(out, name(demographics.getGender()));
+            writeString(out, sealSsn.apply(demographics.getSocialSecurityNumber()));
+            writeString(out, demographics.getPreferredLanguage());
+            writeString(out, name(demographics.getMaritalStatus()));
+        }
+
+        ContactInfo contactInfo = patient.getContactInfo();
+        out.writeBoolean(contactInfo != null);
+        if (contactInfo != null) {
+            writeString(out, contactInfo.getEmail());
+            writeString(out, contactInfo.getPhoneNumber());
+            writeString(out, contactInfo.getAlternatePhoneNumber());
+            writeString(out, contactInfo.getStreet());
+            writeString(out, contactInfo.getCity());
+            writeString(out, contactInfo.getState());
+            writeString(out, contactInfo.getZipCode());
+            writeString(out, contactInfo.getCountry());
+        }
+
+        EmergencyContact emergencyContact = patient.getEmergencyContact();
+        out.writeBoolean(emergencyContact != null);
+        if (emergencyContact != null) {
+            writeString(out, emergencyContact.getName());
+            writeString(out, emergencyContact.getPhoneNumber());
+            writeString(out, emergencyContact.getEmail());
+            writeString(out, name(emergencyContact.getRelationship()));
+        }
+
+        writeString(out, name(patient.getStatus()));
+        out.writeBoolean(patient.isArchived());
+        writeTime(out, patient.getCreatedAt());
+        writeTime(out, patient.getUpdatedAt());
+    }
+
+    private static Patient readBody(ByteBuffer in, UnaryOperator<String> openSsn) {
+        Patient patient = new Patient();
+
+        if (in.get() != 0) {
+            String firstName = readString(in);
+            String lastName = readString(in);
+            String middleName = readString(in);
+            long dateOfBirth = in.getLong();
+            patient.setDemographics(new Demographics(
+                    firstName,
+                    lastName,
+                    middleName,
+                    dateOfBirth != NO_TIME ? LocalDate.ofEpochDay(dateOfBirth) : null,
+                    enumValue(Gender.class, readString(in)),
+                    openSsn.apply(readString(in)),
+                    readString(in),
+                    enumValue(MaritalStatus.class, readString(in))));
+        }
+
+        if (in.get() != 0) {
+            patient.setContactInfo(new ContactInfo(
+                    readString(in), readString(in), readString(in), readString(in),
+                    readString(in), readString(in), readString(in), readString(in)));
+        }
+
+        if (in.get() != 0) {
+            patient.setEmergencyContact(new EmergencyContact(
+                    readString(in), readString(in), readString(in),
+                    enumValue(Relationship.class, readString(in))));
+        }
+
+        patient.setStatus(enumValue(Status.class, readString(in)));
+        patient.setArchived(in.get() != 0);
+        patient.setCreatedAt(readTime(in));
+        patient.setUpdatedAt(readTime(in));
+        return patient;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Value too long for snapshot: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        short length = in.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        if (value == null) {
+            out.writeLong(NO_TIME);
+            return;
+        }
+        out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(value.getNano());
+    }
+
+    private static LocalDateTime readTime(ByteBuffer in) {
+        long seconds = in.getLong();
+        return seconds != NO_TIME ? LocalDateTime.ofEpochSecond(seconds, in.getInt(), ZoneOffset.UTC) : null;
+    }
+
+    private static String name(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String value) {
+        return value != null ? Enum.valueOf(type, value) : null;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // The snapshot holds PHI; keep it readable by the service user only
+    private static FileAttribute<?>[] ownerOnly() {
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            return new FileAttribute<?>[0];
+        }
+        return new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))};
+    }
+
+}
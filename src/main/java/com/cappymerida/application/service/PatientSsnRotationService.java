@@ -0,0 +1,159 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.exceptions.SsnCheckUnavailableException;
+import com.cappymerida.domain.repository.PatientSsnRepository;
+import com.cappymerida.infrastructure.crypto.SsnCipher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Walks the patients whose SSN is not in the form {@link SsnCipher} produces today
+ * (legacy plaintext, ciphertext under a retired key, or no blind index) in id
+ * batches and rewrites them. Current rows are filtered out by the query, so a pass
+ * over an up-to-date table reads nothing back. Each batch commits on its own; a
+ * Postgres advisory lock lets only one instance run a pass at a time, and an
+ * interrupted pass simply resumes on the next one. A retired key can be removed
+ * from configuration once a pass rewrites nothing.
+ * <p>
+ * Uniqueness checks look SSNs up by blind index and cannot see rows that have none
+ * yet (written before V7). Until no such row is left, {@link #requireCompleteBlindIndex}
+ * fails those checks closed instead of letting a duplicate through; meanwhile a
+ * backfill pass is attempted every check interval, off the startup path.
+ */
+@Service
+@Slf4j
+public class PatientSsnRotationService implements InitializingBean {
+
+    private final PatientSsnRepository patientSsnRepository;
+    private final SsnCipher ssnCipher;
+    private final int batchSize;
+    private final Counter rewrittenCounter;
+    private final Counter failedCounter;
+
+    // Unknown until checked: fail closed
+    private volatile boolean blindIndexComplete;
+
+    public PatientSsnRotationService(PatientSsnRepository patientSsnRepository,
+                                     SsnCipher ssnCipher,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${patients.ssn-encryption.rotation.batch-size:500}") int batchSize) {
+        this.patientSsnRepository = patientSsnRepository;
+        this.ssnCipher = ssnCipher;
+        this.batchSize = batchSize;
+        this.rewrittenCounter = Counter.builder("patients.ssn.rewritten")
+                .description("Stored SSNs re-encrypted or re-indexed by the rotation job")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("patients.ssn.unreadable")
+                .description("Stored SSNs the rotation job could not decrypt")
+                .register(meterRegistry);
+    }
+
+    // One indexed EXISTS (V8); a failure leaves the checks closed until the next backfill check
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            blindIndexComplete = !patientSsnRepository.existsWithoutBlindIndex();
+        } catch (RuntimeException e) {
+            log.warn("Could not check for stored SSNs without a blind index: {}", e.getMessage());
+        }
+        if (!blindIndexComplete) {
+            log.warn("SSN uniqueness checks are closed until stored SSNs are indexed");
+        }
+    }
+
+    /**
+     * Throws {@link SsnCheckUnavailableException} while stored SSNs without a blind
+     * index may exist, since a blind index lookup would miss them.
+     */
+    public void requireCompleteBlindIndex() {
+        if (!blindIndexComplete) {
+            throw new SsnCheckUnavailableException();
+        }
+    }
+
+    @Scheduled(initialDelay = 0,
+            fixedDelayString = "${patients.ssn-encryption.rotation.backfill-check-interval:30s}")
+    public void backfillBlindIndex() {
+        if (blindIndexComplete) {
+            return;
+        }
+        if (patientSsnRepository.existsWithoutBlindIndex()) {
+            // Another instance may hold the lock; its progress shows up on the next check
+            rotate();
+        }
+        blindIndexComplete = !patientSsnRepository.existsWithoutBlindIndex();
+        if (blindIndexComplete) {
+            log.info("All stored SSNs are indexed, SSN uniqueness checks are open");
+        }
+    }
+
+    @Scheduled(initialDelayString = "${patients.ssn-encryption.rotation.initial-delay:1m}",
+            fixedDelayString = "${patients.ssn-encryption.rotation.interval:1h}")
+    public synchronized void rotate() {
+        if (!patientSsnRepository.runExclusively(this::rotatePass)) {
+            log.debug("SSN rotation is running on another instance");
+        }
+    }
+
+    private void rotatePass() {
+        long scanned = 0;
+        long rewritten = 0;
+        String lastId = "";
+        String currentPrefix = ssnCipher.currentPrefix();
+        List<PatientSsnRepository.StoredSsn> rows;
+
+        do {
+            rows = patientSsnRepository.findStaleAfter(lastId, currentPrefix, batchSize);
+            List<PatientSsnRepository.SsnRewrite> rewrites = new ArrayList<>();
+            for (PatientSsnRepository.StoredSsn row : rows) {
+                PatientSsnRepository.SsnRewrite rewrite = rewriteFor(row);
+                if (rewrite != null) {
+                    rewrites.add(rewrite);
+                }
+            }
+
+            int updated = patientSsnRepository.rewrite(rewrites);
+            rewrittenCounter.increment(updated);
+            rewritten += updated;
+            scanned += rows.size();
+            if (!rows.isEmpty()) {
+                lastId = rows.get(rows.size() - 1).id();
+            }
+        } while (rows.size() == batchSize);
+
+        if (scanned > 0) {
+            log.info("Rewrote {} of {} outdated stored SSNs", rewritten, scanned);
+        } else {
+            log.debug("All stored SSNs are current");
+        }
+    }
+
+    private PatientSsnRepository.SsnRewrite rewriteFor(PatientSsnRepository.StoredSsn row) {
+        String stored = row.socialSecurityNumber();
+        String ssn;
+        try {
+            ssn = ssnCipher.decrypt(stored);
+        } catch (RuntimeException e) {
+            log.error("Cannot decrypt SSN of patient {}: {}", row.id(), e.getMessage());
+            failedCounter.increment();
+            return null;
+        }
+
+        boolean current = ssnCipher.isCurrent(stored);
+        String blindIndex = ssnCipher.blindIndex(ssn);
+        if (current && blindIndex.equals(row.ssnBlindIndex())) {
+            return null;
+        }
+        return new PatientSsnRepository.SsnRewrite(row.id(), stored,
+                current ? stored : ssnCipher.encrypt(ssn), blindIndex);
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.exceptions.PatientVersionConflictException;
+import com.cappymerida.domain.model.PatientVersion;
+import com.cappymerida.domain.repository.PatientRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a patient change in its own transaction and, when it loses a concurrency
+ * race, runs it again against a fresh read. That covers optimistic lock failures
+ * and the serialization failures (SQLSTATE 40001) Postgres raises when a concurrent
+ * status change moved the row to another partition, which Spring translates to
+ * other {@link ConcurrencyFailureException} subtypes. Only for changes that are safe to
+ * re-apply: the attempt must re-read the patient and either apply the same intent
+ * again or throw. Backoff is exponential with full jitter so that writers piling on
+ * one chart spread out instead of colliding again in lockstep.
+ * <p>
+ * When the attempts are used up a {@link PatientVersionConflictException} carrying
+ * the current version is thrown.
+ */
+@Component
+@Slf4j
+public class PatientUpdateRetry {
+
+    private final PatientRepository patientRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+
+    public PatientUpdateRetry(PatientRepository patientRepository,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${patients.update-retry.max-attempts:4}") int maxAttempts,
+                              @Value("${patients.update-retry.initial-backoff:10ms}") Duration initialBackoff,
+                              @Value("${patients.update-retry.max-backoff:200ms}") Duration maxBackoff) {
+        this.patientRepository = patientRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+
+    public <T> T execute(String operation, String patientId, Supplier<T> attempt) {
+        for (int attemptNumber = 1; ; attemptNumber++) {
+            try {
+                T result = transactionTemplate.execute(status -> attempt.get());
+                if (attemptNumber > 1) {
+                    conflicts(operation, "resolved").increment();
+                }
+                return result;
+            } catch (ConcurrencyFailureException e) {
+                if (attemptNumber >= maxAttempts) {
+                    conflicts(operation, "exhausted").increment();
+                    log.info("Giving up {} of patient {} after {} conflicting attempts", operation, patientId, attemptNumber);
+                    throw new PatientVersionConflictException(patientId, currentVersion(patientId));
+                }
+                conflicts(operation, "retried").increment();
+                log.debug("Concurrency conflict on {} of patient {}, attempt {}: {}",
+                        operation, patientId, attemptNumber, e.getClass().getSimpleName());
+                backoff(attemptNumber, patientId);
+            } catch (PatientVersionConflictException e) {
+                conflicts(operation, "overlapping").increment();
+                throw e;
+            }
+        }
+    }
+
+    private void backoff(int attemptNumber, String patientId) {
+        long ceiling = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attemptNumber - 1, 20));
+        long nanos = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(Duration.ofNanos(nanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PatientVersionConflictException(patientId, currentVersion(patientId));
+        }
+    }
+
+    private Long currentVersion(String patientId) {
+        List<PatientVersion> versions = patientRepository.findVersionsByIdIn(List.of(patientId));
+        return versions.isEmpty() ? null : versions.get(0).version();
+    }
+
+    private Counter conflicts(String operation, String outcome) {
+        return Counter.builder("patients.update.conflicts")
+                .description("Concurrency conflicts on patient changes by outcome")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+}
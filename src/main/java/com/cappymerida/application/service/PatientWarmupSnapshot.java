@@ -0,0 +1,324 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.model.PatientVersion;
+import com.cappymerida.domain.repository.PatientRepository;
+import com.cappymerida.infrastructure.crypto.SsnCipher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves the most-read patients from a memory-mapped {@link PatientSnapshotFile}
+ * so a new instance does not have to pull them from Postgres one by one after a
+ * deploy. Reads are counted per id; every write interval the hottest patients are
+ * reloaded, written to the local snapshot file and mapped in place of the previous
+ * one. On boot the file left by the previous run is mapped before traffic arrives.
+ * <p>
+ * A snapshot, whether left by the previous run or just written, is checked
+ * against the database {@code version} in one batched pass before any of its
+ * entries is served, so deletes and edits made while it sat on disk are never
+ * served. After that, entries are served without a database round trip and
+ * re-checked in the background: a change made through another instance is
+ * visible here after at most one revalidation interval, a change made through
+ * this instance evicts the entry right away.
+ * <p>
+ * The snapshot holds PHI, so there is no default location: warm-up stays off until
+ * {@code patients.warmup.path} points at a volume meant for it.
+ */
+@Component
+@Slf4j
+public class PatientWarmupSnapshot implements InitializingBean {
+
+    private final PatientRepository patientRepository;
+    private final SsnCipher ssnCipher;
+    private final boolean enabled;
+    private final Path path;
+    private final int maxEntries;
+    private final int maxTrackedIds;
+    private final Duration maxAge;
+    private final int batchSize;
+
+    private final Map<String, LongAdder> reads = new ConcurrentHashMap<>();
+    // Ids changed while a new snapshot was being built; removed from it before it is served
+    private final Set<String> changedDuringWrite = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger staleEntries = new AtomicInteger();
+
+    private final Timer loadTimer;
+    private final Timer writeTimer;
+    private final Counter hitCounter;
+
+    private volatile PatientSnapshotFile snapshot;
+
+    public PatientWarmupSnapshot(PatientRepository patientRepository,
+                                 SsnCipher ssnCipher,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${patients.warmup.enabled:true}") boolean enabled,
+                                 @Value("${patients.warmup.path:}") String path,
+                                 @Value("${patients.warmup.max-entries:5000}") int maxEntries,
+                                 @Value("${patients.warmup.max-tracked-ids:100000}") int maxTrackedIds,
+                                 @Value("${patients.warmup.max-age:6h}") Duration maxAge,
+                                 @Value("${patients.warmup.batch-size:500}") int batchSize) {
+        this.patientRepository = patientRepository;
+        this.ssnCipher = ssnCipher;
+        this.path = StringUtils.hasText(path) ? Path.of(path) : null;
+        this.enabled = enabled && this.path != null;
+        if (enabled && this.path == null) {
+            log.info("Warm-up snapshot disabled: patients.warmup.path is not set");
+        }
+        this.maxEntries = maxEntries;
+        this.maxTrackedIds = maxTrackedIds;
+        this.maxAge = maxAge;
+        this.batchSize = batchSize;
+
+        Gauge.builder("patients.warmup.snapshot.size", this, s -> s.snapshot != null ? s.snapshot.sizeBytes() : 0)
+                .description("Size of the mapped warm-up snapshot file")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("patients.warmup.snapshot.entries", this, s -> s.snapshot != null ? s.snapshot.size() : 0)
+                .description("Patients currently served from the warm-up snapshot")
+                .register(meterRegistry);
+        Gauge.builder("patients.warmup.snapshot.stale.ratio", this, PatientWarmupSnapshot::staleRatio)
+                .description("Share of the mapped snapshot's entries found outdated by revalidation")
+                .register(meterRegistry);
+        this.loadTimer = Timer.builder("patients.warmup.snapshot.load")
+                .description("Time to map and index a warm-up snapshot")
+                .register(meterRegistry);
+        this.writeTimer = Timer.builder("patients.warmup.snapshot.write")
+                .description("Time to reload the hottest patients and write a warm-up snapshot")
+                .register(meterRegistry);
+        this.hitCounter = Counter.builder("patients.warmup.snapshot.hits")
+                .description("Patient reads served from the warm-up snapshot")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled || !Files.exists(path)) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            PatientSnapshotFile file = PatientSnapshotFile.open(path, ssnCipher::decrypt);
+            Duration age = Duration.between(file.createdAt(), Instant.now());
+            if (age.compareTo(maxAge) > 0) {
+                log.info("Ignoring warm-up snapshot {} written {} ago", path, age);
+                return;
+            }
+            int outdated = install(file);
+            // Carry the previous run's hot set over until this instance has counts of its own
+            file.ids().forEach(id -> reads.computeIfAbsent(id, key -> new LongAdder()).increment());
+            loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.info("Mapped warm-up snapshot with {} patients ({} bytes, {} outdated dropped) in {} ms",
+                    file.size(), file.sizeBytes(), outdated, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load warm-up snapshot {}, starting cold", path, e);
+        }
+    }
+
+    public Optional<Patient> find(String id) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        recordRead(id);
+
+        PatientSnapshotFile current = snapshot;
+        Patient patient = null;
+        if (current != null) {
+            try {
+                patient = current.read(id);
+            } catch (RuntimeException e) {
+                // e.g. the SSN was sealed with a key that has since been retired
+                log.warn("Dropping unreadable warm-up snapshot entry {}", id, e);
+                current.remove(id);
+            }
+        }
+        if (patient != null) {
+            hitCounter.increment();
+        }
+        return Optional.ofNullable(patient);
+    }
+
+    /**
+     * Drops the patient from the snapshot now and again once the surrounding
+     * transaction completes, so a read racing the commit cannot re-serve the old copy.
+     */
+    public void evict(String id) {
+        evictNow(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(id);
+                }
+            });
+        }
+    }
+
+    @Scheduled(initialDelayString = "${patients.warmup.write-interval:5m}",
+            fixedDelayString = "${patients.warmup.write-interval:5m}")
+    public void writeSnapshot() {
+        if (!enabled) {
+            return;
+        }
+        List<String> hottest = hottestIds();
+        if (hottest.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        changedDuringWrite.clear();
+        List<Patient> patients = new ArrayList<>(hottest.size());
+        for (List<String> chunk : chunks(hottest)) {
+            patients.addAll(patientRepository.findAllById(chunk));
+        }
+
+        try {
+            long bytes = PatientSnapshotFile.write(path, patients, Instant.now(), ssnCipher::encrypt);
+            install(PatientSnapshotFile.open(path, ssnCipher::decrypt));
+            writeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.debug("Wrote warm-up snapshot with {} patients ({} bytes)", patients.size(), bytes);
+        } catch (IOException e) {
+            log.warn("Could not write warm-up snapshot {}", path, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${patients.warmup.revalidate-interval:30s}")
+    public void revalidate() {
+        PatientSnapshotFile current = snapshot;
+        if (current == null) {
+            return;
+        }
+
+        int stale = removeOutdated(current);
+        if (stale > 0 && current == snapshot) {
+            staleEntries.addAndGet(stale);
+            log.debug("Dropped {} outdated patients from the warm-up snapshot", stale);
+        }
+    }
+
+    /**
+     * Verifies every entry before the file is served. Ids changed through this
+     * instance meanwhile are dropped after it is in place, so an eviction racing
+     * the switch is not lost.
+     */
+    private int install(PatientSnapshotFile file) {
+        int outdated = removeOutdated(file);
+        snapshot = file;
+        staleEntries.set(outdated);
+        changedDuringWrite.forEach(file::remove);
+        return outdated;
+    }
+
+    private int removeOutdated(PatientSnapshotFile file) {
+        int stale = 0;
+        for (List<String> chunk : chunks(new ArrayList<>(file.ids()))) {
+            Map<String, Long> versions = new HashMap<>(chunk.size() * 2);
+            for (PatientVersion version : patientRepository.findVersionsByIdIn(chunk)) {
+                versions.put(version.id(), version.version());
+            }
+            for (String id : chunk) {
+                boolean outdated = !versions.containsKey(id)
+                        || !Objects.equals(versions.get(id), file.version(id));
+                if (outdated && file.remove(id)) {
+                    stale++;
+                }
+            }
+        }
+        return stale;
+    }
+
+    private void evictNow(String id) {
+        changedDuringWrite.add(id);
+        PatientSnapshotFile current = snapshot;
+        if (current != null) {
+            current.remove(id);
+        }
+    }
+
+    private void recordRead(String id) {
+        LongAdder counter = reads.get(id);
+        if (counter == null) {
+            if (reads.size() >= maxTrackedIds) {
+                return;
+            }
+            counter = reads.computeIfAbsent(id, key -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * Picks the most-read ids and halves every count, so patients that stop being
+     * read fall out of the snapshot after a few intervals.
+     */
+    private List<String> hottestIds() {
+        PriorityQueue<Map.Entry<String, Long>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<String, LongAdder> entry : reads.entrySet()) {
+            long count = entry.getValue().sumThenReset();
+            if (count > 1) {
+                entry.getValue().add(count / 2);
+            } else {
+                reads.remove(entry.getKey(), entry.getValue());
+            }
+            if (count == 0) {
+                continue;
+            }
+            top.offer(Map.entry(entry.getKey(), count));
+            if (top.size() > maxEntries) {
+                top.poll();
+            }
+        }
+
+        List<String> ids = new ArrayList<>(top.size());
+        top.stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .forEach(entry -> ids.add(entry.getKey()));
+        return ids;
+    }
+
+    private double staleRatio() {
+        PatientSnapshotFile current = snapshot;
+        if (current == null || current.initialEntries() == 0) {
+            return 0;
+        }
+        return (double) staleEntries.get() / current.initialEntries();
+    }
+
+    private List<List<String>> chunks(List<String> ids) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            chunks.add(ids.subList(from, Math.min(from + batchSize, ids.size())));
+        }
+        return chunks;
+    }
+
+}
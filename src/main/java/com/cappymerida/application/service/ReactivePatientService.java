@@ -0,0 +1,85 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.enums.PatientSortField;
+import com.cappymerida.domain.enums.Status;
+import com.cappymerida.domain.exceptions.PatientConflictException;
+import com.cappymerida.domain.exceptions.PatientNotFoundException;
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.repository.ReactivePatientRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of {@link PatientService} for the v2 API. Applies the same
+ * uniqueness rules and signals the same domain exceptions.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReactivePatientService {
+
+    private final ReactivePatientRepository reactivePatientRepository;
+    private final PatientSearchCache patientSearchCache;
+    private final PatientSsnRotationService patientSsnRotationService;
+
+    public Mono<Patient> findPatientById(String id) {
+        log.debug("Finding patient by ID (reactive): {}", id);
+        return reactivePatientRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new PatientNotFoundException(id)));
+    }
+
+    public Flux<Patient> searchPatients(String searchTerm, Status status, PatientSortField sortField,
+                                        Sort.Direction direction, int page, int size) {
+        log.debug("Searching patients (reactive) with term: {}, status: {}", searchTerm, status);
+        return reactivePatientRepository.search(status, searchTerm, sortField, direction, size, (long) page * size);
+    }
+
+    public Flux<Patient> streamPatients(Status status) {
+        log.debug("Streaming patients (reactive) with status: {}", status);
+        return reactivePatientRepository.streamAll(status);
+    }
+
+    public Mono<Patient> createPatient(Patient patient) {
+        log.info("Creating new patient (reactive): {}", patient.getDemographics().getFullName());
+
+        String email = patient.getContactInfo() != null ? patient.getContactInfo().getEmail() : null;
+        String ssn = patient.getDemographics().getSocialSecurityNumber();
+
+        Mono<Void> emailCheck = email == null ? Mono.empty() : reactivePatientRepository.existsByEmail(email)
+                .flatMap(exists -> exists
+                        ? Mono.error(new PatientConflictException("Email already exists"))
+                        : Mono.empty());
+        Mono<Void> ssnCheck = ssn == null ? Mono.empty() : Mono
+                .fromRunnable(patientSsnRotationService::requireCompleteBlindIndex)
+                .then(reactivePatientRepository.existsBySocialSecurityNumber(ssn))
+                .flatMap(exists -> exists
+                        ? Mono.error(new PatientConflictException("Social Security Number already exists"))
+                        : Mono.empty());
+
+        return emailCheck
+                .then(ssnCheck)
+                .then(Mono.defer(() -> {
+                    // Same defaults JPA applies on persist
+                    LocalDateTime now = LocalDateTime.now();
+                    patient.setId(UUID.randomUUID().toString());
+                    patient.setStatus(Status.ACTIVE);
+                    patient.setCreatedAt(now);
+                    patient.setUpdatedAt(now);
+                    patient.setVersion(0L);
+                    return reactivePatientRepository.insert(patient);
+                }))
+                .doOnNext(saved -> {
+                    // v1 search pages are cached in-process; the insert is committed by now
+                    patientSearchCache.onPatientChanged(null, PatientSearchCache.SearchView.of(saved));
+                    log.info("Patient created with ID: {}", saved.getId());
+                });
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.cappymerida.domain.enums;
+
+public enum CohortDimension {
+    AGE_BAND,
+    GENDER,
+    MARITAL_STATUS,
+    CITY,
+    STATUS
+}
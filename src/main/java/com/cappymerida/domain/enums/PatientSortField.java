@@ -0,0 +1,45 @@
+package com.cappymerida.domain.enums;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Sort fields accepted by patient search. Every entry is backed by an index on
+ * {@code patients} (see V5 migration); add the index before adding a value here.
+ * The JPA property is used by the v1 API, the column by the R2DBC queries of v2.
+ */
+public enum PatientSortField {
+    CREATED_AT("createdAt", "createdAt", "created_at"),
+    UPDATED_AT("updatedAt", "updatedAt", "updated_at"),
+    LAST_NAME("lastName", "demographics.lastName", "last_name"),
+    FIRST_NAME("firstName", "demographics.firstName", "first_name"),
+    DATE_OF_BIRTH("dateOfBirth", "demographics.dateOfBirth", "date_of_birth");
+
+    private final String parameter;
+    private final String property;
+    private final String column;
+
+    PatientSortField(String parameter, String property, String column) {
+        this.parameter = parameter;
+        this.property = property;
+        this.column = column;
+    }
+
+    public String getParameter() {
+        return parameter;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public static Optional<PatientSortField> fromParameter(String parameter) {
+        return Arrays.stream(values())
+                .filter(field -> field.parameter.equals(parameter))
+                .findFirst();
+    }
+}
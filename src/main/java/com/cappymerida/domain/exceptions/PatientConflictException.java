@@ -0,0 +1,9 @@
+package com.cappymerida.domain.exceptions;
+
+public class PatientConflictException extends PatientDomainException {
+
+    public PatientConflictException(String message) {
+        super(message);
+    }
+
+}
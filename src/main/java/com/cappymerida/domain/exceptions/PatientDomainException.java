@@ -0,0 +1,13 @@
+package com.cappymerida.domain.exceptions;
+
+/**
+ * Base for expected, client-caused outcomes of patient operations. These are
+ * control flow rather than failures, so no stack trace is captured.
+ */
+public abstract class PatientDomainException extends RuntimeException {
+
+    protected PatientDomainException(String message) {
+        super(message, null, false, false);
+    }
+
+}
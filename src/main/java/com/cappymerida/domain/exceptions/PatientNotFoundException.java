@@ -0,0 +1,15 @@
+package com.cappymerida.domain.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class PatientNotFoundException extends PatientDomainException {
+
+    private final String patientId;
+
+    public PatientNotFoundException(String patientId) {
+        super("Patient not found");
+        this.patientId = patientId;
+    }
+
+}
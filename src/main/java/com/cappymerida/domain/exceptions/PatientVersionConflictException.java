@@ -0,0 +1,21 @@
+package com.cappymerida.domain.exceptions;
+
+import lombok.Getter;
+
+/**
+ * A change could not be applied because the patient kept changing underneath it.
+ * Carries the version the client should re-read and retry against.
+ */
+@Getter
+public class PatientVersionConflictException extends PatientConflictException {
+
+    private final String patientId;
+    private final Long currentVersion;
+
+    public PatientVersionConflictException(String patientId, Long currentVersion) {
+        super("Patient was modified concurrently");
+        this.patientId = patientId;
+        this.currentVersion = currentVersion;
+    }
+
+}
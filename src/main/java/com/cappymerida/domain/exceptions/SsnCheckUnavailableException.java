@@ -0,0 +1,16 @@
+package com.cappymerida.domain.exceptions;
+
+import org.springframework.dao.TransientDataAccessResourceException;
+
+/**
+ * SSN uniqueness cannot be checked yet because stored SSNs without a blind index
+ * exist. Transient: the feed redelivers the batch, the API answers 503, and both
+ * succeed once the backfill has indexed those rows.
+ */
+public class SsnCheckUnavailableException extends TransientDataAccessResourceException {
+
+    public SsnCheckUnavailableException() {
+        super("Social Security Number uniqueness cannot be verified until stored SSNs are indexed");
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.cappymerida.domain.model;
+
+import com.cappymerida.domain.enums.CohortDimension;
+import com.cappymerida.domain.enums.Gender;
+import com.cappymerida.domain.enums.MaritalStatus;
+import com.cappymerida.domain.enums.Status;
+
+import java.util.Set;
+
+/**
+ * Group-by dimensions plus optional filters; an empty filter set matches everything.
+ */
+public record CohortQuery(
+        Set<CohortDimension> groupBy,
+        Set<Gender> genders,
+        Set<MaritalStatus> maritalStatuses,
+        Set<Status> statuses,
+        Set<String> cities,
+        Integer minAge,
+        Integer maxAge
+) {}
@@ -0,0 +1,20 @@
+package com.cappymerida.domain.model;
+
+import com.cappymerida.domain.enums.CohortDimension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public record CohortResult(
+        long total,
+        List<Bucket> buckets,
+        LocalDateTime snapshotAsOf
+) {
+
+    public record Bucket(
+            Map<CohortDimension, String> dimensions,
+            long count
+    ) {}
+
+}
@@ -2,6 +2,8 @@ package com.cappymerida.domain.model;
 
 import com.cappymerida.domain.enums.Gender;
 import com.cappymerida.domain.enums.MaritalStatus;
+import com.cappymerida.infrastructure.crypto.SsnEncryptionConverter;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Embeddable;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -37,7 +39,9 @@ public class Demographics {
     @Enumerated(EnumType.STRING)
     private Gender gender;
 
+    @Convert(converter = SsnEncryptionConverter.class)
     private String socialSecurityNumber;
+
     private String preferredLanguage;
 
     @Enumerated(EnumType.STRING)
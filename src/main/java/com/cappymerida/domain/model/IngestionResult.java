@@ -0,0 +1,24 @@
+package com.cappymerida.domain.model;
+
+import java.util.List;
+
+/**
+ * Outcome of one ingested batch. {@code missing} records were updates for a
+ * patient that no longer exists (deleted through the API) and changed nothing.
+ * {@code rejected} records were not applied and belong on the dead-letter topic.
+ */
+public record IngestionResult(
+        int inserted,
+        int updated,
+        int stale,
+        int missing,
+        List<Rejection> rejected
+) {
+
+    public IngestionResult(int inserted, int updated, int stale) {
+        this(inserted, updated, stale, 0, List.of());
+    }
+
+    public record Rejection(PatientIngestionRecord record, String reason) {}
+
+}
@@ -1,6 +1,7 @@
 package com.cappymerida.domain.model;
 
 import com.cappymerida.domain.enums.Status;
+import com.cappymerida.infrastructure.crypto.SsnBlindIndexListener;
 import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.AttributeOverrides;
 import jakarta.persistence.Column;
@@ -26,7 +27,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "patients")
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, SsnBlindIndexListener.class})
 @Data
 @NoArgsConstructor
 public class Patient {
@@ -67,6 +68,14 @@ public class Patient {
     @Column(nullable = false)
     private Status status = Status.ACTIVE;
 
+    // Set by PatientArchivalService; moves the row into the archive partition
+    @Column(nullable = false)
+    private boolean archived;
+
+    // Keyed hash of the SSN; equality lookups use it since the SSN column is encrypted
+    @Column(name = "ssn_blind_index", length = 64)
+    private String ssnBlindIndex;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -91,6 +100,7 @@ public class Patient {
 
     public void activate() {
         this.status = Status.ACTIVE;
+        this.archived = false;
     }
 
     public void deactivate() {
@@ -0,0 +1,22 @@
+package com.cappymerida.domain.model;
+
+import com.cappymerida.domain.enums.Gender;
+import com.cappymerida.domain.enums.MaritalStatus;
+import com.cappymerida.domain.enums.Status;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * The handful of columns the cohort analytics snapshot needs, loaded as a JPQL
+ * constructor projection instead of full entities.
+ */
+public record PatientCohortRow(
+        String id,
+        LocalDate dateOfBirth,
+        Gender gender,
+        MaritalStatus maritalStatus,
+        String city,
+        Status status,
+        LocalDateTime updatedAt
+) {}
@@ -0,0 +1,7 @@
+package com.cappymerida.domain.model;
+
+public record PatientFieldChange(
+        String field,
+        String oldValue,
+        String newValue
+) {}
@@ -0,0 +1,14 @@
+package com.cappymerida.domain.model;
+
+import java.time.LocalDateTime;
+
+public record PatientHistoryEntry(
+        Long id,
+        String patientId,
+        Long patientVersion,
+        String field,
+        String oldValue,
+        String newValue,
+        String changedBy,
+        LocalDateTime changedAt
+) {}
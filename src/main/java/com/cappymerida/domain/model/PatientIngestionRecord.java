@@ -0,0 +1,12 @@
+package com.cappymerida.domain.model;
+
+/**
+ * One patient registration or demographic update from an upstream feed.
+ * {@code sourceVersion} is the feed's own version; older versions never
+ * overwrite newer ones.
+ */
+public record PatientIngestionRecord(
+        String externalId,
+        long sourceVersion,
+        Patient patient
+) {}
@@ -0,0 +1,7 @@
+package com.cappymerida.domain.model;
+
+/**
+ * Id and optimistic-lock version of a patient, enough to tell whether a copy
+ * held outside the database is still current.
+ */
+public record PatientVersion(String id, Long version) {}
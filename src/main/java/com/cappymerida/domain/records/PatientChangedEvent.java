@@ -0,0 +1,14 @@
+package com.cappymerida.domain.records;
+
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.model.PatientFieldChange;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record PatientChangedEvent(
+        Patient patient,
+        List<PatientFieldChange> changes,
+        String changedBy,
+        LocalDateTime changedAt
+) {}
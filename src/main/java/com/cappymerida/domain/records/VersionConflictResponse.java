@@ -0,0 +1,11 @@
+package com.cappymerida.domain.records;
+
+import java.time.LocalDateTime;
+
+public record VersionConflictResponse(
+        String code,
+        String message,
+        LocalDateTime timestamp,
+        String patientId,
+        Long currentVersion
+) {}
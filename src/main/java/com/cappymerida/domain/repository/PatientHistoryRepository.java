@@ -0,0 +1,78 @@
+package com.cappymerida.domain.repository;
+
+import com.cappymerida.domain.model.PatientHistoryEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plain JDBC rather than JPA so that a batch of history rows goes out as a
+ * single multi-row INSERT.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PatientHistoryRepository {
+
+    // 7 bind parameters per row keeps a full statement well under the 32767 limit
+    private static final int MAX_ROWS_PER_STATEMENT = 500;
+
+    private static final String INSERT_PREFIX = "INSERT INTO patient_history " +
+            "(patient_id, patient_version, field, old_value, new_value, changed_by, changed_at) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_COLUMNS = "SELECT id, patient_id, patient_version, field, " +
+            "old_value, new_value, changed_by, changed_at FROM patient_history ";
+
+    private static final RowMapper<PatientHistoryEntry> ROW_MAPPER = (rs, rowNum) -> new PatientHistoryEntry(
+            rs.getLong("id"),
+            rs.getString("patient_id"),
+            rs.getObject("patient_version", Long.class),
+            rs.getString("field"),
+            rs.getString("old_value"),
+            rs.getString("new_value"),
+            rs.getString("changed_by"),
+            rs.getTimestamp("changed_at").toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<PatientHistoryEntry> entries) {
+        for (int from = 0; from < entries.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<PatientHistoryEntry> chunk = entries.subList(from,
+                    Math.min(from + MAX_ROWS_PER_STATEMENT, entries.size()));
+
+            StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+            List<Object> args = new ArrayList<>(chunk.size() * 7);
+            for (int i = 0; i < chunk.size(); i++) {
+                PatientHistoryEntry entry = chunk.get(i);
+                sql.append(i == 0 ? "" : ", ").append(ROW_PLACEHOLDERS);
+                args.add(entry.patientId());
+                args.add(entry.patientVersion());
+                args.add(entry.field());
+                args.add(entry.oldValue());
+                args.add(entry.newValue());
+                args.add(entry.changedBy());
+                args.add(Timestamp.valueOf(entry.changedAt()));
+            }
+            jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+    }
+
+    /**
+     * Newest first. Pass the smallest id of the previous page as {@code beforeId}
+     * to continue; {@code null} starts from the most recent change.
+     */
+    public List<PatientHistoryEntry> findByPatientId(String patientId, Long beforeId, int limit) {
+        if (beforeId == null) {
+            return jdbcTemplate.query(SELECT_COLUMNS + "WHERE patient_id = ? ORDER BY id DESC LIMIT ?",
+                    ROW_MAPPER, patientId, limit);
+        }
+        return jdbcTemplate.query(SELECT_COLUMNS + "WHERE patient_id = ? AND id < ? ORDER BY id DESC LIMIT ?",
+                ROW_MAPPER, patientId, beforeId, limit);
+    }
+
+}
@@ -2,13 +2,20 @@ package com.cappymerida.domain.repository;
 
 import com.cappymerida.domain.enums.Status;
 import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.model.PatientCohortRow;
+import com.cappymerida.domain.model.PatientVersion;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,7 +24,8 @@ public interface PatientRepository extends JpaRepository<Patient, String> {
 
     Optional<Patient> findByContactInfoEmail(String email);
 
-    List<Patient> findByDemographicsSocialSecurityNumber(String ssn);
+    // The SSN column is encrypted; look patients up by SsnCipher.blindIndex(ssn)
+    List<Patient> findBySsnBlindIndex(String ssnBlindIndex);
 
     @Query("SELECT p FROM Patient p WHERE " +
             "LOWER(p.demographics.firstName) LIKE LOWER(CONCAT('%', :name, '%')) OR " +
@@ -28,13 +36,15 @@ public interface PatientRepository extends JpaRepository<Patient, String> {
 
     boolean existsByContactInfoEmail(String email);
 
-    boolean existsByDemographicsSocialSecurityNumber(String ssn);
+    boolean existsBySsnBlindIndex(String ssnBlindIndex);
 
     long countByStatus(Status status);
 
+    // Status is compared directly (no ":status IS NULL OR ...") so the planner can prune partitions.
+    // The term is required: without one, callers use findByStatus / findAll, which keeps an
+    // optional ":searchTerm IS NULL OR ..." branch out of generic plans.
     @Query("SELECT p FROM Patient p WHERE " +
-            "(:status IS NULL OR p.status = :status) AND " +
-            "(:searchTerm IS NULL OR " +
+            "p.status = :status AND (" +
             "LOWER(p.demographics.firstName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
             "LOWER(p.demographics.lastName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
             "LOWER(p.contactInfo.email) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
@@ -42,4 +52,39 @@ public interface PatientRepository extends JpaRepository<Patient, String> {
                                           @Param("searchTerm") String searchTerm,
                                           Pageable pageable);
 
+    @Query("SELECT p FROM Patient p WHERE " +
+            "LOWER(p.demographics.firstName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+            "LOWER(p.demographics.lastName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+            "LOWER(p.contactInfo.email) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
+    Page<Patient> findAllPatientsWithFilters(@Param("searchTerm") String searchTerm,
+                                             Pageable pageable);
+
+    // Only reads patients_inactive_current; SKIP LOCKED lets several instances run the job.
+    // Bumping version makes a copy loaded before archival fail on save instead of un-archiving the row.
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE patients SET archived = TRUE, version = version + 1, updated_at = :archivedAt " +
+            "WHERE status IN ('INACTIVE', 'DECEASED') AND archived = FALSE AND id IN (" +
+            "SELECT id FROM patients WHERE status IN ('INACTIVE', 'DECEASED') AND archived = FALSE " +
+            "AND updated_at < :cutoff LIMIT :batchSize FOR UPDATE SKIP LOCKED)",
+            nativeQuery = true)
+    int archiveInactiveBefore(@Param("cutoff") LocalDateTime cutoff,
+                              @Param("archivedAt") LocalDateTime archivedAt,
+                              @Param("batchSize") int batchSize);
+
+    // Keyset over (updatedAt, id) for incremental analytics refreshes; the leading
+    // "updatedAt >= :since" lets the (updated_at, id) index start at the watermark
+    @Query("SELECT new com.cappymerida.domain.model.PatientCohortRow(" +
+            "p.id, p.demographics.dateOfBirth, p.demographics.gender, p.demographics.maritalStatus, " +
+            "p.contactInfo.city, p.status, p.updatedAt) FROM Patient p WHERE " +
+            "p.updatedAt >= :since AND (p.updatedAt > :since OR p.id > :lastId) " +
+            "ORDER BY p.updatedAt, p.id")
+    List<PatientCohortRow> findCohortRowsAfter(@Param("since") LocalDateTime since,
+                                               @Param("lastId") String lastId,
+                                               Limit limit);
+
+    @Query("SELECT new com.cappymerida.domain.model.PatientVersion(p.id, p.version) FROM Patient p " +
+            "WHERE p.id IN :ids")
+    List<PatientVersion> findVersionsByIdIn(@Param("ids") Collection<String> ids);
+
 }
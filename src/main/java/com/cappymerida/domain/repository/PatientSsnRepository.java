@@ -0,0 +1,120 @@
+package com.cappymerida.domain.repository;
+
+import com.cappymerida.infrastructure.crypto.SsnCipher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Raw access to the stored (encrypted) SSN columns for key rotation, bypassing the
+ * JPA converter so values can be read and compared exactly as they are stored.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PatientSsnRepository {
+
+    private static final String ROTATION_LOCK = "patients.ssn-rotation";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record StoredSsn(String id, String socialSecurityNumber, String ssnBlindIndex) {}
+
+    public record SsnRewrite(String id, String expected, String socialSecurityNumber, String ssnBlindIndex) {}
+
+    /**
+     * Rows whose SSN lacks a blind index or is not stored in the current form:
+     * {@code currentPrefix} is the prefix of current ciphertext, or {@code null} when
+     * encryption is off and only plaintext is current. Keyset over the primary key so
+     * every batch starts where the previous one ended.
+     */
+    public List<StoredSsn> findStaleAfter(String lastId, String currentPrefix, int limit) {
+        String stale = currentPrefix != null
+                ? "social_security_number NOT LIKE ? ESCAPE '\\'"
+                : "social_security_number LIKE ? ESCAPE '\\'";
+        String pattern = likePrefix(currentPrefix != null ? currentPrefix : SsnCipher.PREFIX);
+        return jdbcTemplate.query("SELECT id, social_security_number, ssn_blind_index FROM patients " +
+                        "WHERE id > ? AND social_security_number IS NOT NULL " +
+                        "AND (ssn_blind_index IS NULL OR " + stale + ") ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new StoredSsn(
+                        rs.getString("id"),
+                        rs.getString("social_security_number"),
+                        rs.getString("ssn_blind_index")),
+                lastId, pattern, limit);
+    }
+
+    // Served by the partial index from V8
+    public boolean existsWithoutBlindIndex() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM patients " +
+                "WHERE ssn_blind_index IS NULL AND social_security_number IS NOT NULL)", Boolean.class));
+    }
+
+    /**
+     * Writes the new values only where the row still holds the value that was read,
+     * so an edit committed in between is never overwritten. {@code version} and
+     * {@code updated_at} are left alone: the SSN itself did not change. Returns the
+     * number of rows rewritten.
+     */
+    public int rewrite(List<SsnRewrite> rewrites) {
+        if (rewrites.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder sql = new StringBuilder("UPDATE patients AS p SET " +
+                "social_security_number = v.social_security_number, ssn_blind_index = v.ssn_blind_index FROM (VALUES ");
+        List<Object> args = new ArrayList<>(rewrites.size() * 4);
+        for (int i = 0; i < rewrites.size(); i++) {
+            SsnRewrite rewrite = rewrites.get(i);
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(CAST(? AS varchar), CAST(? AS varchar), CAST(? AS varchar), CAST(? AS varchar))");
+            args.add(rewrite.id());
+            args.add(rewrite.expected());
+            args.add(rewrite.socialSecurityNumber());
+            args.add(rewrite.ssnBlindIndex());
+        }
+        sql.append(") AS v (id, expected, social_security_number, ssn_blind_index) " +
+                "WHERE p.id = v.id AND p.social_security_number = v.expected");
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    /**
+     * Runs {@code pass} unless another instance is running one. The session-level
+     * advisory lock is held on a connection of its own for the whole pass, while the
+     * pass's batches commit on other connections; Postgres releases it if this
+     * instance dies. Returns {@code false} when the lock was taken.
+     */
+    public boolean runExclusively(Runnable pass) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(hashtext(?))")) {
+                return false;
+            }
+            try {
+                pass.run();
+                return true;
+            } finally {
+                advisoryLock(connection, "SELECT pg_advisory_unlock(hashtext(?))");
+            }
+        }));
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, ROTATION_LOCK);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static String likePrefix(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+}
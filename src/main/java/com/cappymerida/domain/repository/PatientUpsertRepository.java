@@ -0,0 +1,261 @@
+package com.cappymerida.domain.repository;
+
+import com.cappymerida.domain.enums.Gender;
+import com.cappymerida.domain.enums.MaritalStatus;
+import com.cappymerida.domain.enums.Relationship;
+import com.cappymerida.domain.enums.Status;
+import com.cappymerida.domain.model.ContactInfo;
+import com.cappymerida.domain.model.Demographics;
+import com.cappymerida.domain.model.EmergencyContact;
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.model.PatientIngestionRecord;
+import com.cappymerida.infrastructure.crypto.SsnCipher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Multi-row writes for feed ingestion. The external id table takes the
+ * {@code INSERT ... ON CONFLICT DO UPDATE} (the partitioned patients table
+ * cannot carry a unique key on external_id); patients rows are then inserted or
+ * updated in one statement each.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PatientUpsertRepository {
+
+    // Keeps the widest statement (23 parameters per row) under the 32767 bind limit
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private static final String PATIENT_VALUES = "(CAST(? AS varchar), CAST(? AS varchar), CAST(? AS varchar), " +
+            "CAST(? AS varchar), CAST(? AS date), CAST(? AS varchar), CAST(? AS varchar), CAST(? AS varchar), " +
+            "CAST(? AS varchar), CAST(? AS varchar), CAST(? AS varchar), CAST(? AS varchar), CAST(? AS varchar), " +
+            "CAST(? AS varchar), CAST(? AS varchar), CAST(? AS varchar), CAST(? AS varchar), CAST(? AS varchar), " +
+            "CAST(? AS varchar), CAST(? AS varchar), CAST(? AS varchar), CAST(? AS varchar), CAST(? AS varchar))";
+
+    private static final String PATIENT_COLUMNS = "id, first_name, last_name, middle_name, date_of_birth, gender, " +
+            "social_security_number, preferred_language, marital_status, contact_email, contact_phone, " +
+            "contact_alt_phone, address_street, address_city, address_state, address_zip, address_country, " +
+            "emergency_name, emergency_phone, emergency_email, emergency_relationship, ssn_blind_index, status";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SsnCipher ssnCipher;
+
+    public record ClaimedKey(String externalId, String patientId, boolean inserted) {}
+
+    public record UniqueKeyOwner(String externalId, String email, String ssnBlindIndex) {}
+
+    /**
+     * Patients already holding any of the given emails or SSN blind indexes, with the
+     * external id each one is registered under ({@code null} for patients created
+     * through the API).
+     */
+    public List<UniqueKeyOwner> findUniqueKeyOwners(Collection<String> emails, Collection<String> ssnBlindIndexes) {
+        if (emails.isEmpty() && ssnBlindIndexes.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query("SELECT e.external_id, p.contact_email, p.ssn_blind_index FROM patients p " +
+                        "LEFT JOIN patient_external_ids e ON e.patient_id = p.id " +
+                        "WHERE p.contact_email = ANY (CAST(? AS varchar[])) " +
+                        "OR p.ssn_blind_index = ANY (CAST(? AS varchar[]))",
+                (rs, rowNum) -> new UniqueKeyOwner(
+                        rs.getString("external_id"),
+                        rs.getString("contact_email"),
+                        rs.getString("ssn_blind_index")),
+                emails.toArray(String[]::new),
+                ssnBlindIndexes.toArray(String[]::new));
+    }
+
+    /**
+     * Registers or advances the source version of each external id. Returns only
+     * the ids whose version moved forward; stale or replayed versions are left out.
+     * External ids must be unique within the list.
+     */
+    public List<ClaimedKey> claimKeys(List<PatientIngestionRecord> records) {
+        List<ClaimedKey> claimed = new ArrayList<>(records.size());
+        for (List<PatientIngestionRecord> chunk : chunks(records)) {
+            StringBuilder sql = new StringBuilder(
+                    "INSERT INTO patient_external_ids (external_id, patient_id, source_version, updated_at) VALUES ");
+            List<Object> args = new ArrayList<>(chunk.size() * 3);
+            for (int i = 0; i < chunk.size(); i++) {
+                PatientIngestionRecord record = chunk.get(i);
+                sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, now())");
+                args.add(record.externalId());
+                args.add(UUID.randomUUID().toString());
+                args.add(record.sourceVersion());
+            }
+            sql.append(" ON CONFLICT (external_id) DO UPDATE SET " +
+                    "source_version = EXCLUDED.source_version, updated_at = EXCLUDED.updated_at " +
+                    "WHERE patient_external_ids.source_version < EXCLUDED.source_version " +
+                    // xmax = 0 only for rows this statement inserted
+                    "RETURNING external_id, patient_id, (xmax = 0) AS inserted");
+
+            claimed.addAll(jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new ClaimedKey(
+                    rs.getString("external_id"),
+                    rs.getString("patient_id"),
+                    rs.getBoolean("inserted")), args.toArray()));
+        }
+        return claimed;
+    }
+
+    public void insertPatients(List<Patient> patients) {
+        for (List<Patient> chunk : chunks(patients)) {
+            StringBuilder sql = new StringBuilder("INSERT INTO patients (" + PATIENT_COLUMNS +
+                    ", archived, created_at, updated_at, version) SELECT v.*, FALSE, now(), now(), 0 FROM (VALUES ");
+            List<Object> args = new ArrayList<>(chunk.size() * 23);
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append(PATIENT_VALUES);
+                addPatientArgs(args, chunk.get(i));
+            }
+            sql.append(") AS v");
+            jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+    }
+
+    /**
+     * Overwrites the feed-owned fields and bumps {@code version} so concurrent JPA
+     * edits fail their optimistic lock instead of silently winning. Returns each
+     * updated row as it was before, for search invalidation and history; ids with
+     * no row (deleted through the API) are absent. The given patients get their new
+     * version.
+     */
+    public List<Patient> updatePatients(List<Patient> patients) {
+        Map<String, Patient> byId = new HashMap<>();
+        patients.forEach(patient -> byId.put(patient.getId(), patient));
+
+        List<Patient> previous = new ArrayList<>(patients.size());
+        for (List<Patient> chunk : chunks(patients)) {
+            StringBuilder sql = new StringBuilder("WITH v (").append(PATIENT_COLUMNS).append(") AS (VALUES ");
+            List<Object> args = new ArrayList<>(chunk.size() * 23);
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append(PATIENT_VALUES);
+                addPatientArgs(args, chunk.get(i));
+            }
+            // Locking the rows while reading them makes "previous" the state this update replaces
+            sql.append("), previous AS (SELECT p.* FROM patients p JOIN v ON v.id = p.id FOR UPDATE OF p) " +
+                    "UPDATE patients AS p SET " +
+                    "first_name = v.first_name, last_name = v.last_name, middle_name = v.middle_name, " +
+                    "date_of_birth = v.date_of_birth, gender = v.gender, " +
+                    "social_security_number = v.social_security_number, ssn_blind_index = v.ssn_blind_index, " +
+                    "preferred_language = v.preferred_language, marital_status = v.marital_status, " +
+                    "contact_email = v.contact_email, contact_phone = v.contact_phone, " +
+                    "contact_alt_phone = v.contact_alt_phone, address_street = v.address_street, " +
+                    "address_city = v.address_city, address_state = v.address_state, " +
+                    "address_zip = v.address_zip, address_country = v.address_country, " +
+                    "emergency_name = v.emergency_name, emergency_phone = v.emergency_phone, " +
+                    "emergency_email = v.emergency_email, emergency_relationship = v.emergency_relationship, " +
+                    "status = v.status, " +
+                    "archived = CASE WHEN v.status = 'ACTIVE' THEN FALSE ELSE p.archived END, " +
+                    "updated_at = now(), version = COALESCE(p.version, 0) + 1 " +
+                    "FROM v JOIN previous AS o ON o.id = v.id WHERE p.id = v.id " +
+                    "RETURNING o.*, p.version AS updated_version");
+            previous.addAll(jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+                Patient old = toPatient(rs);
+                byId.get(old.getId()).setVersion(rs.getLong("updated_version"));
+                return old;
+            }, args.toArray()));
+        }
+        return previous;
+    }
+
+    private Patient toPatient(ResultSet rs) throws SQLException {
+        Demographics demographics = new Demographics(
+                rs.getString("first_name"),
+                rs.getString("last_name"),
+                rs.getString("middle_name"),
+                rs.getObject("date_of_birth", LocalDate.class),
+                enumValue(Gender.class, rs.getString("gender")),
+                ssnCipher.decrypt(rs.getString("social_security_number")),
+                rs.getString("preferred_language"),
+                enumValue(MaritalStatus.class, rs.getString("marital_status")));
+
+        ContactInfo contactInfo = new ContactInfo(
+                rs.getString("contact_email"),
+                rs.getString("contact_phone"),
+                rs.getString("contact_alt_phone"),
+                rs.getString("address_street"),
+                rs.getString("address_city"),
+                rs.getString("address_state"),
+                rs.getString("address_zip"),
+                rs.getString("address_country"));
+
+        EmergencyContact emergencyContact = new EmergencyContact(
+                rs.getString("emergency_name"),
+                rs.getString("emergency_phone"),
+                rs.getString("emergency_email"),
+                enumValue(Relationship.class, rs.getString("emergency_relationship")));
+
+        Patient patient = new Patient();
+        patient.setId(rs.getString("id"));
+        patient.setDemographics(demographics);
+        patient.setContactInfo(contactInfo);
+        patient.setEmergencyContact(emergencyContact);
+        patient.setSsnBlindIndex(rs.getString("ssn_blind_index"));
+        patient.setStatus(enumValue(Status.class, rs.getString("status")));
+        patient.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        patient.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+        patient.setVersion(rs.getObject("version", Long.class));
+        return patient;
+    }
+
+    private void addPatientArgs(List<Object> args, Patient patient) {
+        Demographics demographics = patient.getDemographics();
+        ContactInfo contactInfo = patient.getContactInfo() != null ? patient.getContactInfo() : new ContactInfo();
+        EmergencyContact emergency = patient.getEmergencyContact() != null
+                ? patient.getEmergencyContact()
+                : new EmergencyContact();
+
+        args.add(patient.getId());
+        args.add(demographics.getFirstName());
+        args.add(demographics.getLastName());
+        args.add(demographics.getMiddleName());
+        args.add(demographics.getDateOfBirth() != null ? Date.valueOf(demographics.getDateOfBirth()) : null);
+        args.add(name(demographics.getGender()));
+        args.add(ssnCipher.encrypt(demographics.getSocialSecurityNumber()));
+        args.add(demographics.getPreferredLanguage());
+        args.add(name(demographics.getMaritalStatus()));
+        args.add(contactInfo.getEmail());
+        args.add(contactInfo.getPhoneNumber());
+        args.add(contactInfo.getAlternatePhoneNumber());
+        args.add(contactInfo.getStreet());
+        args.add(contactInfo.getCity());
+        args.add(contactInfo.getState());
+        args.add(contactInfo.getZipCode());
+        args.add(contactInfo.getCountry());
+        args.add(emergency.getName());
+        args.add(emergency.getPhoneNumber());
+        args.add(emergency.getEmail());
+        args.add(name(emergency.getRelationship()));
+        args.add(ssnCipher.blindIndex(demographics.getSocialSecurityNumber()));
+        args.add(name(patient.getStatus()));
+    }
+
+    private static String name(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String value) {
+        return value != null ? Enum.valueOf(type, value) : null;
+    }
+
+    private static <T> List<List<T>> chunks(List<T> items) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += MAX_ROWS_PER_STATEMENT) {
+            chunks.add(items.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, items.size())));
+        }
+        return chunks;
+    }
+
+}
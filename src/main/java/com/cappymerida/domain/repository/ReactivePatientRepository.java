@@ -0,0 +1,208 @@
+package com.cappymerida.domain.repository;
+
+import com.cappymerida.domain.enums.Gender;
+import com.cappymerida.domain.enums.MaritalStatus;
+import com.cappymerida.domain.enums.PatientSortField;
+import com.cappymerida.domain.enums.Relationship;
+import com.cappymerida.domain.enums.Status;
+import com.cappymerida.domain.model.ContactInfo;
+import com.cappymerida.domain.model.Demographics;
+import com.cappymerida.domain.model.EmergencyContact;
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.infrastructure.crypto.SsnCipher;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Non-blocking access to the {@code patients} table for the v2 API. Column names
+ * follow the JPA mapping of {@link Patient}; the SSN is encrypted and blind-indexed
+ * here the same way the JPA converter and listener do it.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactivePatientRepository {
+
+    // Rows fetched per round trip when streaming, so large result sets are never buffered whole
+    private static final int STREAM_FETCH_SIZE = 256;
+
+    private static final String COLUMNS = "id, first_name, last_name, middle_name, date_of_birth, gender, " +
+            "social_security_number, preferred_language, marital_status, " +
+            "contact_email, contact_phone, contact_alt_phone, address_street, address_city, address_state, " +
+            "address_zip, address_country, emergency_name, emergency_phone, emergency_email, " +
+            "emergency_relationship, ssn_blind_index, status, created_at, updated_at, version";
+
+    private final DatabaseClient databaseClient;
+    private final SsnCipher ssnCipher;
+
+    public Mono<Patient> findById(String id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM patients WHERE id = :id")
+                .bind("id", id)
+                .map(this::toPatient)
+                .one();
+    }
+
+    public Flux<Patient> search(Status status, String searchTerm, PatientSortField sortField,
+                                Sort.Direction direction, int limit, long offset) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        // Column and direction come from enums, never from the request text
+        String sql = "SELECT " + COLUMNS + " FROM patients" + filters(status, searchTerm, params) +
+                " ORDER BY " + sortField.getColumn() + " " + direction.name() + " LIMIT :limit OFFSET :offset";
+        params.put("limit", limit);
+        params.put("offset", offset);
+
+        return databaseClient.sql(sql)
+                .bindValues(params)
+                .map(this::toPatient)
+                .all();
+    }
+
+    public Flux<Patient> streamAll(Status status) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        String sql = "SELECT " + COLUMNS + " FROM patients" + filters(status, null, params) + " ORDER BY id";
+
+        return databaseClient.sql(sql)
+                .bindValues(params)
+                .filter(statement -> statement.fetchSize(STREAM_FETCH_SIZE))
+                .map(this::toPatient)
+                .all();
+    }
+
+    public Mono<Boolean> existsByEmail(String email) {
+        return databaseClient.sql("SELECT 1 FROM patients WHERE contact_email = :email LIMIT 1")
+                .bind("email", email)
+                .map(row -> true)
+                .first()
+                .defaultIfEmpty(false);
+    }
+
+    public Mono<Boolean> existsBySocialSecurityNumber(String ssn) {
+        return databaseClient.sql("SELECT 1 FROM patients WHERE ssn_blind_index = :ssnBlindIndex LIMIT 1")
+                .bind("ssnBlindIndex", ssnCipher.blindIndex(ssn))
+                .map(row -> true)
+                .first()
+                .defaultIfEmpty(false);
+    }
+
+    public Mono<Patient> insert(Patient patient) {
+        Demographics demographics = patient.getDemographics();
+        ContactInfo contactInfo = patient.getContactInfo() != null ? patient.getContactInfo() : new ContactInfo();
+        EmergencyContact emergency = patient.getEmergencyContact() != null
+                ? patient.getEmergencyContact()
+                : new EmergencyContact();
+        patient.setSsnBlindIndex(ssnCipher.blindIndex(demographics.getSocialSecurityNumber()));
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("INSERT INTO patients (" + COLUMNS + ") VALUES (" +
+                ":id, :firstName, :lastName, :middleName, :dateOfBirth, :gender, :ssn, :preferredLanguage, " +
+                ":maritalStatus, :email, :phone, :altPhone, :street, :city, :state, :zip, :country, " +
+                ":emergencyName, :emergencyPhone, :emergencyEmail, :emergencyRelationship, :ssnBlindIndex, :status, " +
+                ":createdAt, :updatedAt, :version)");
+
+        spec = bind(spec, "id", patient.getId(), String.class);
+        spec = bind(spec, "firstName", demographics.getFirstName(), String.class);
+        spec = bind(spec, "lastName", demographics.getLastName(), String.class);
+        spec = bind(spec, "middleName", demographics.getMiddleName(), String.class);
+        spec = bind(spec, "dateOfBirth", demographics.getDateOfBirth(), LocalDate.class);
+        spec = bind(spec, "gender", name(demographics.getGender()), String.class);
+        spec = bind(spec, "ssn", ssnCipher.encrypt(demographics.getSocialSecurityNumber()), String.class);
+        spec = bind(spec, "preferredLanguage", demographics.getPreferredLanguage(), String.class);
+        spec = bind(spec, "maritalStatus", name(demographics.getMaritalStatus()), String.class);
+        spec = bind(spec, "email", contactInfo.getEmail(), String.class);
+        spec = bind(spec, "phone", contactInfo.getPhoneNumber(), String.class);
+        spec = bind(spec, "altPhone", contactInfo.getAlternatePhoneNumber(), String.class);
+        spec = bind(spec, "street", contactInfo.getStreet(), String.class);
+        spec = bind(spec, "city", contactInfo.getCity(), String.class);
+        spec = bind(spec, "state", contactInfo.getState(), String.class);
+        spec = bind(spec, "zip", contactInfo.getZipCode(), String.class);
+        spec = bind(spec, "country", contactInfo.getCountry(), String.class);
+        spec = bind(spec, "emergencyName", emergency.getName(), String.class);
+        spec = bind(spec, "emergencyPhone", emergency.getPhoneNumber(), String.class);
+        spec = bind(spec, "emergencyEmail", emergency.getEmail(), String.class);
+        spec = bind(spec, "emergencyRelationship", name(emergency.getRelationship()), String.class);
+        spec = bind(spec, "ssnBlindIndex", patient.getSsnBlindIndex(), String.class);
+        spec = bind(spec, "status", name(patient.getStatus()), String.class);
+        spec = bind(spec, "createdAt", patient.getCreatedAt(), LocalDateTime.class);
+        spec = bind(spec, "updatedAt", patient.getUpdatedAt(), LocalDateTime.class);
+        spec = bind(spec, "version", patient.getVersion(), Long.class);
+
+        return spec.fetch().rowsUpdated().thenReturn(patient);
+    }
+
+    private static String filters(Status status, String searchTerm, Map<String, Object> params) {
+        StringBuilder where = new StringBuilder();
+        if (status != null) {
+            where.append(" WHERE status = :status");
+            params.put("status", status.name());
+        }
+        if (searchTerm != null && !searchTerm.isBlank()) {
+            where.append(where.isEmpty() ? " WHERE " : " AND ")
+                    .append("(LOWER(first_name) LIKE :term OR LOWER(last_name) LIKE :term OR LOWER(contact_email) LIKE :term)");
+            params.put("term", "%" + searchTerm.toLowerCase(Locale.ROOT) + "%");
+        }
+        return where.toString();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec,
+                                                          String name, Object value, Class<?> type) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+
+    private static String name(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String value) {
+        return value != null ? Enum.valueOf(type, value) : null;
+    }
+
+    Patient toPatient(Readable row) {
+        Demographics demographics = new Demographics(
+                row.get("first_name", String.class),
+                row.get("last_name", String.class),
+                row.get("middle_name", String.class),
+                row.get("date_of_birth", LocalDate.class),
+                enumValue(Gender.class, row.get("gender", String.class)),
+                ssnCipher.decrypt(row.get("social_security_number", String.class)),
+                row.get("preferred_language", String.class),
+                enumValue(MaritalStatus.class, row.get("marital_status", String.class)));
+
+        ContactInfo contactInfo = new ContactInfo(
+                row.get("contact_email", String.class),
+                row.get("contact_phone", String.class),
+                row.get("contact_alt_phone", String.class),
+                row.get("address_street", String.class),
+                row.get("address_city", String.class),
+                row.get("address_state", String.class),
+                row.get("address_zip", String.class),
+                row.get("address_country", String.class));
+
+        EmergencyContact emergencyContact = new EmergencyContact(
+                row.get("emergency_name", String.class),
+                row.get("emergency_phone", String.class),
+                row.get("emergency_email", String.class),
+                enumValue(Relationship.class, row.get("emergency_relationship", String.class)));
+
+        Patient patient = new Patient();
+        patient.setId(row.get("id", String.class));
+        patient.setDemographics(demographics);
+        patient.setContactInfo(contactInfo);
+        patient.setEmergencyContact(emergencyContact);
+        patient.setSsnBlindIndex(row.get("ssn_blind_index", String.class));
+        patient.setStatus(enumValue(Status.class, row.get("status", String.class)));
+        patient.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        patient.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        patient.setVersion(row.get("version", Long.class));
+        return patient;
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.cappymerida.infrastructure.config;
+
+import com.cappymerida.application.service.PatientWarmupSnapshot;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.web.SecurityFilterChain;
+
+import javax.sql.DataSource;
+
+@Configuration
+@Profile("fast-start")
+public class FastStartConfig {
+
+    // Everything else (Kafka, Redis, discovery, ...) initializes on first use
+    @Bean
+    static LazyInitializationExcludeFilter eagerCoreBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                DataSource.class,
+                FlywayMigrationInitializer.class,
+                EntityManagerFactory.class,
+                SecurityFilterChain.class,
+                JwtDecoder.class,
+                // Maps the warm-up snapshot before the first request instead of during it
+                PatientWarmupSnapshot.class);
+    }
+
+}
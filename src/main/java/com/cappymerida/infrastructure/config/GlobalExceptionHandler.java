@@ -1,23 +1,115 @@
 package com.cappymerida.infrastructure.config;
 
+import com.cappymerida.domain.exceptions.PatientConflictException;
+import com.cappymerida.domain.exceptions.PatientNotFoundException;
+import com.cappymerida.domain.exceptions.PatientVersionConflictException;
+import com.cappymerida.domain.exceptions.SsnCheckUnavailableException;
 import com.cappymerida.domain.records.ErrorResponse;
 import com.cappymerida.domain.records.ValidationErrorResponse;
+import com.cappymerida.domain.records.VersionConflictResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 @RestControllerAdvice
 @Slf4j
 public class GlobalExceptionHandler {
 
+    // Expected outcomes: no stack trace and no ERROR line, stale-id probes are frequent
+    @ExceptionHandler(PatientNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handlePatientNotFound(PatientNotFoundException ex) {
+        log.debug("Patient not found: {}", ex.getPatientId());
+
+        ErrorResponse error = new ErrorResponse(
+                "PATIENT_NOT_FOUND",
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    @ExceptionHandler(PatientConflictException.class)
+    public ResponseEntity<ErrorResponse> handlePatientConflict(PatientConflictException ex) {
+        log.info("Patient conflict: {}", ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+                "PATIENT_CONFLICT",
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    // The ETag lets the client re-read and retry against the version that won
+    @ExceptionHandler(PatientVersionConflictException.class)
+    public ResponseEntity<VersionConflictResponse> handlePatientVersionConflict(PatientVersionConflictException ex) {
+        log.info("Patient version conflict: {} (current version {})", ex.getPatientId(), ex.getCurrentVersion());
+
+        VersionConflictResponse error = new VersionConflictResponse(
+                "PATIENT_VERSION_CONFLICT",
+                ex.getMessage(),
+                LocalDateTime.now(),
+                ex.getPatientId(),
+                ex.getCurrentVersion()
+        );
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CONFLICT);
+        if (ex.getCurrentVersion() != null) {
+            response.eTag(ex.getCurrentVersion().toString());
+        }
+        return response.body(error);
+    }
+
+    // Writes outside PatientUpdateRetry; the current version is not known here
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<VersionConflictResponse> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        log.info("Optimistic locking failure: {}", ex.getMessage());
+
+        String patientId = ex instanceof ObjectOptimisticLockingFailureException objectFailure
+                ? Objects.toString(objectFailure.getIdentifier(), null)
+                : null;
+        VersionConflictResponse error = new VersionConflictResponse(
+                "PATIENT_VERSION_CONFLICT",
+                "Patient was modified concurrently",
+                LocalDateTime.now(),
+                patientId,
+                null
+        );
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    // Temporary while the SSN blind index backfill runs; the client retries
+    @ExceptionHandler(SsnCheckUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleSsnCheckUnavailable(SsnCheckUnavailableException ex) {
+        log.warn("Rejected write: {}", ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+                "SSN_CHECK_UNAVAILABLE",
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .body(error);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponse> handleIllegalArgument(IllegalArgumentException ex) {
         log.error("Illegal argument: {}", ex.getMessage());
@@ -54,6 +146,25 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(errorResponse);
     }
 
+    // Constraint annotations on request parameters, e.g. @Min/@Max on paging
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<ValidationErrorResponse> handleMethodValidation(HandlerMethodValidationException ex) {
+        log.debug("Parameter validation error: {}", ex.getMessage());
+
+        Map<String, String> errors = new HashMap<>();
+        ex.getParameterValidationResults().forEach(result -> result.getResolvableErrors().forEach(error ->
+                errors.put(result.getMethodParameter().getParameterName(), error.getDefaultMessage())));
+
+        ValidationErrorResponse errorResponse = new ValidationErrorResponse(
+                "VALIDATION_FAILED",
+                "Invalid request parameters",
+                LocalDateTime.now(),
+                errors
+        );
+
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
         log.error("Unexpected error: ", ex);
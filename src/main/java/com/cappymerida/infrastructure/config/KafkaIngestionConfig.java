@@ -0,0 +1,36 @@
+package com.cappymerida.infrastructure.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.time.Duration;
+
+@Configuration
+@Slf4j
+public class KafkaIngestionConfig {
+
+    /**
+     * The listener dead-letters invalid and rejected records itself and only throws
+     * when the database, or the dead-letter topic, is unreachable. Such a batch is
+     * redelivered with capped exponential backoff for as long as it keeps failing:
+     * the consumer is paused meanwhile, so it stays in the group, and no offset is
+     * committed until the batch goes through. There is deliberately no recoverer;
+     * valid records never end up on the dead-letter topic because of an outage.
+     */
+    @Bean
+    public CommonErrorHandler kafkaErrorHandler(
+            @Value("${patients.ingestion.retry.initial-interval:500ms}") Duration initialInterval,
+            @Value("${patients.ingestion.retry.max-interval:30s}") Duration maxInterval) {
+        ExponentialBackOff backOff = new ExponentialBackOff(initialInterval.toMillis(), 2.0);
+        backOff.setMaxInterval(maxInterval.toMillis());
+        // No max elapsed time: the default is unlimited
+
+        return new DefaultErrorHandler(backOff);
+    }
+
+}
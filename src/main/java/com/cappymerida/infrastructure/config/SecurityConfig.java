@@ -37,6 +37,7 @@ public class SecurityConfig {
 
                         // Endpoints de API requieren autenticación
                         .requestMatchers("/api/v1/patients/**").authenticated()
+                        .requestMatchers("/api/v2/patients/**").authenticated()
                         .anyRequest().authenticated()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2
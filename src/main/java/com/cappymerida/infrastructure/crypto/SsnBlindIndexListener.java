@@ -0,0 +1,23 @@
+package com.cappymerida.infrastructure.crypto;
+
+import com.cappymerida.domain.model.Patient;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps {@link Patient#getSsnBlindIndex()} in step with the SSN the entity holds.
+ */
+@RequiredArgsConstructor
+public class SsnBlindIndexListener {
+
+    private final SsnCipher ssnCipher;
+
+    @PrePersist
+    @PreUpdate
+    void updateBlindIndex(Patient patient) {
+        String ssn = patient.getDemographics() != null ? patient.getDemographics().getSocialSecurityNumber() : null;
+        patient.setSsnBlindIndex(ssnCipher.blindIndex(ssn));
+    }
+
+}
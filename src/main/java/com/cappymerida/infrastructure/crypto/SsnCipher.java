@@ -0,0 +1,197 @@
+package com.cappymerida.infrastructure.crypto;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Field-level protection for social security numbers.
+ * <ul>
+ *     <li>{@link #encrypt} produces {@code enc:v1:<keyId>:<base64(iv | ciphertext | tag)>} with
+ *     AES-256-GCM under the active key; the envelope prefix is authenticated as AAD.</li>
+ *     <li>{@link #blindIndex} is an HMAC-SHA256 of the normalized SSN under a separate key, so
+ *     equality lookups can use an ordinary index without ever decrypting.</li>
+ * </ul>
+ * {@link Cipher} and {@link Mac} are not thread-safe and costly to look up, so each
+ * thread keeps its own instance. Values without the {@code enc:} prefix are
+ * treated as legacy plaintext until {@code PatientSsnRotationService} rewrites them.
+ */
+@Component
+@Slf4j
+public class SsnCipher {
+
+    public static final String PREFIX = "enc:v1:";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final Pattern SEPARATORS = Pattern.compile("[\\s-]");
+
+    private final boolean enabled;
+    private final String activeKeyId;
+    private final Map<String, SecretKey> keys;
+    private final SecretKey indexKey;
+    private final SecureRandom random = new SecureRandom();
+
+    private final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(() -> newInstance(() -> Cipher.getInstance("AES/GCM/NoPadding")));
+    private final ThreadLocal<Mac> macs;
+
+    public SsnCipher(@Value("${patients.ssn-encryption.enabled:true}") boolean enabled,
+                     @Value("${patients.ssn-encryption.active-key-id:}") String activeKeyId,
+                     @Value("${patients.ssn-encryption.keys:}") String keys,
+                     @Value("${patients.ssn-encryption.blind-index-key:}") String indexKey) {
+        this.enabled = enabled;
+        this.activeKeyId = activeKeyId;
+        this.keys = parseKeys(keys);
+        if (indexKey.isBlank()) {
+            throw new IllegalStateException("patients.ssn-encryption.blind-index-key is not configured");
+        }
+        this.indexKey = new SecretKeySpec(Base64.getDecoder().decode(indexKey), "HmacSHA256");
+        if (enabled && !this.keys.containsKey(activeKeyId)) {
+            throw new IllegalStateException("No SSN encryption key configured for active key id '" + activeKeyId + "'");
+        }
+
+        this.macs = ThreadLocal.withInitial(() -> newInstance(() -> {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(this.indexKey);
+            return mac;
+        }));
+        log.info("SSN encryption {} (active key: {}, {} keys loaded)",
+                enabled ? "enabled" : "disabled", activeKeyId, this.keys.size());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String encrypt(String ssn) {
+        if (ssn == null || !enabled) {
+            return ssn;
+        }
+
+        String header = PREFIX + activeKeyId + ":";
+        byte[] iv = new byte[IV_BYTES];
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = ciphers.get();
+            cipher.init(Cipher.ENCRYPT_MODE, keys.get(activeKeyId), new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(header.getBytes(StandardCharsets.US_ASCII));
+            byte[] sealed = cipher.doFinal(ssn.getBytes(StandardCharsets.UTF_8));
+            byte[] envelope = ByteBuffer.allocate(IV_BYTES + sealed.length).put(iv).put(sealed).array();
+            return header + Base64.getEncoder().encodeToString(envelope);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SSN encryption failed", e);
+        }
+    }
+
+    public String decrypt(String value) {
+        if (value == null || !value.startsWith(PREFIX)) {
+            return value;
+        }
+
+        int separator = value.indexOf(':', PREFIX.length());
+        if (separator < 0) {
+            throw new IllegalStateException("Malformed encrypted SSN: no key id separator");
+        }
+        String keyId = value.substring(PREFIX.length(), separator);
+        SecretKey key = keys.get(keyId);
+        if (key == null) {
+            throw new IllegalStateException("SSN was encrypted with unknown key id '" + keyId + "'");
+        }
+
+        byte[] envelope;
+        try {
+            envelope = Base64.getDecoder().decode(value.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Malformed encrypted SSN for key id '" + keyId + "'", e);
+        }
+        if (envelope.length < IV_BYTES + TAG_BITS / 8) {
+            throw new IllegalStateException("Malformed encrypted SSN for key id '" + keyId + "': envelope too short");
+        }
+        try {
+            Cipher cipher = ciphers.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, envelope, 0, IV_BYTES));
+            cipher.updateAAD(value.substring(0, separator + 1).getBytes(StandardCharsets.US_ASCII));
+            byte[] plain = cipher.doFinal(envelope, IV_BYTES, envelope.length - IV_BYTES);
+            return new String(plain, StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SSN decryption failed for key id '" + keyId + "'", e);
+        }
+    }
+
+    /**
+     * Keyed hash used for equality lookups. Dashes and whitespace are ignored, so
+     * {@code 123-45-6789} and {@code 123456789} index to the same value.
+     */
+    public String blindIndex(String ssn) {
+        if (ssn == null) {
+            return null;
+        }
+        String normalized = SEPARATORS.matcher(ssn).replaceAll("");
+        return HexFormat.of().formatHex(macs.get().doFinal(normalized.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Whether a stored value is already in the form {@link #encrypt} would produce
+     * today: encrypted under the active key, or plaintext when encryption is off.
+     */
+    public boolean isCurrent(String value) {
+        if (value == null) {
+            return true;
+        }
+        return enabled ? value.startsWith(currentPrefix()) : !value.startsWith(PREFIX);
+    }
+
+    /**
+     * Prefix every value {@link #encrypt} produces today, or {@code null} when
+     * encryption is off and values are stored as plaintext.
+     */
+    public String currentPrefix() {
+        return enabled ? PREFIX + activeKeyId + ":" : null;
+    }
+
+    private static Map<String, SecretKey> parseKeys(String keys) {
+        Map<String, SecretKey> parsed = new LinkedHashMap<>();
+        for (String entry : keys.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalStateException("SSN keys must be listed as <keyId>:<base64 key>");
+            }
+            byte[] key = Base64.getDecoder().decode(entry.substring(separator + 1).trim());
+            if (key.length != 32) {
+                throw new IllegalStateException("SSN encryption keys must be 256 bits");
+            }
+            parsed.put(entry.substring(0, separator).trim(), new SecretKeySpec(key, "AES"));
+        }
+        return parsed;
+    }
+
+    private interface CryptoFactory<T> {
+        T create() throws GeneralSecurityException;
+    }
+
+    private static <T> T newInstance(CryptoFactory<T> factory) {
+        try {
+            return factory.create();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Crypto provider unavailable", e);
+        }
+    }
+
+}
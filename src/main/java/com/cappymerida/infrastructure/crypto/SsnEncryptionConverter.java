@@ -0,0 +1,27 @@
+package com.cappymerida.infrastructure.crypto;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Encrypts {@code Demographics.socialSecurityNumber} on its way to the column and
+ * decrypts it on load. Instantiated by Hibernate through Spring, so the cipher is injected.
+ */
+@Converter
+@RequiredArgsConstructor
+public class SsnEncryptionConverter implements AttributeConverter<String, String> {
+
+    private final SsnCipher ssnCipher;
+
+    @Override
+    public String convertToDatabaseColumn(String ssn) {
+        return ssnCipher.encrypt(ssn);
+    }
+
+    @Override
+    public String convertToEntityAttribute(String column) {
+        return ssnCipher.decrypt(column);
+    }
+
+}
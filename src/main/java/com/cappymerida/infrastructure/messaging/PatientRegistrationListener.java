@@ -0,0 +1,222 @@
+package com.cappymerida.infrastructure.messaging;
+
+import com.cappymerida.application.service.PatientIngestionService;
+import com.cappymerida.domain.model.IngestionResult;
+import com.cappymerida.domain.model.PatientIngestionRecord;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Consumes the ADT registration feed in batches. Records that parse and validate are
+ * upserted in one transaction; those that do not, and those the upsert rejects as
+ * duplicates, go to the dead-letter topic once the upsert has succeeded. When the
+ * database or another piece of infrastructure fails, the exception is rethrown and
+ * the container's error handler redelivers the batch with backoff until it succeeds
+ * (see {@code KafkaIngestionConfig}): nothing is dead-lettered and no offset is
+ * committed while Postgres is down. A batch that fails for any other reason is
+ * applied one record at a time so only the records that fail on their own are
+ * dead-lettered. Offsets are committed per batch once the listener returns; a batch
+ * redelivered after a crash is harmless because the upsert is version-ordered.
+ * Consumer lag is exported by the Kafka client metrics Boot binds to Micrometer.
+ */
+@Component
+@Slf4j
+public class PatientRegistrationListener {
+
+    static final String ERROR_HEADER = "x-ingestion-error";
+
+    private final PatientIngestionService ingestionService;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final String deadLetterTopic;
+
+    private final Timer batchTimer;
+    private final Counter insertedCounter;
+    private final Counter updatedCounter;
+    private final Counter staleCounter;
+    private final Counter missingCounter;
+    private final Counter invalidCounter;
+    private final Counter rejectedCounter;
+
+    public PatientRegistrationListener(PatientIngestionService ingestionService,
+                                       KafkaTemplate<String, String> kafkaTemplate,
+                                       ObjectMapper objectMapper,
+                                       Validator validator,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${patients.ingestion.dead-letter-topic}") String deadLetterTopic) {
+        this.ingestionService = ingestionService;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.deadLetterTopic = deadLetterTopic;
+
+        this.batchTimer = Timer.builder("patients.ingestion.batch")
+                .description("Time to apply one batch of feed records")
+                .register(meterRegistry);
+        this.insertedCounter = recordCounter(meterRegistry, "inserted");
+        this.updatedCounter = recordCounter(meterRegistry, "updated");
+        this.staleCounter = recordCounter(meterRegistry, "stale");
+        this.missingCounter = recordCounter(meterRegistry, "missing");
+        this.invalidCounter = recordCounter(meterRegistry, "invalid");
+        this.rejectedCounter = recordCounter(meterRegistry, "rejected");
+    }
+
+    @KafkaListener(id = "patient-registrations",
+            topics = "${patients.ingestion.topic}",
+            batch = "true",
+            autoStartup = "${patients.ingestion.enabled:true}")
+    public void onRegistrations(List<ConsumerRecord<String, String>> records) {
+        log.debug("Received batch of {} registration records", records.size());
+
+        List<PatientIngestionRecord> valid = new ArrayList<>(records.size());
+        Map<PatientIngestionRecord, ConsumerRecord<String, String>> sources = new IdentityHashMap<>();
+        Map<ConsumerRecord<String, String>, String> invalid = new LinkedHashMap<>();
+
+        for (ConsumerRecord<String, String> record : records) {
+            String error;
+            try {
+                PatientRegistrationMessage message = objectMapper.readValue(record.value(), PatientRegistrationMessage.class);
+                error = validate(message);
+                if (error == null) {
+                    PatientIngestionRecord ingestionRecord = message.toRecord();
+                    valid.add(ingestionRecord);
+                    sources.put(ingestionRecord, record);
+                    continue;
+                }
+            } catch (JsonProcessingException e) {
+                error = "Unreadable message: " + e.getOriginalMessage();
+            } catch (IllegalArgumentException e) {
+                error = "Empty message";
+            }
+            invalid.put(record, error);
+        }
+
+        // Throws on infrastructure failures before anything is published, so the
+        // redelivered batch dead-letters its invalid records exactly once
+        IngestionResult result = batchTimer.record(() -> upsert(valid));
+
+        // Offsets must not be committed before these are safely on the DLT
+        List<CompletableFuture<SendResult<String, String>>> deadLetters = new ArrayList<>();
+        invalid.forEach((record, error) -> deadLetters.add(deadLetter(record, error)));
+        result.rejected().forEach(rejection ->
+                deadLetters.add(deadLetter(sources.get(rejection.record()), rejection.reason())));
+        awaitAll(deadLetters);
+
+        insertedCounter.increment(result.inserted());
+        updatedCounter.increment(result.updated());
+        staleCounter.increment(result.stale());
+        missingCounter.increment(result.missing());
+        invalidCounter.increment(invalid.size());
+        rejectedCounter.increment(result.rejected().size());
+        log.info("Ingested {} registrations: {} inserted, {} updated, {} stale, {} missing, {} invalid, {} rejected",
+                records.size(), result.inserted(), result.updated(), result.stale(), result.missing(), invalid.size(),
+                result.rejected().size());
+    }
+
+    private IngestionResult upsert(List<PatientIngestionRecord> valid) {
+        try {
+            return ingestionService.upsertPatients(valid);
+        } catch (RuntimeException e) {
+            if (isInfrastructureFailure(e)) {
+                log.warn("Batch of {} registrations failed, leaving it to redelivery: {}", valid.size(), e.getMessage());
+                throw e;
+            }
+            log.warn("Batch of {} registrations failed, applying them one at a time", valid.size(), e);
+            return upsertIndividually(valid);
+        }
+    }
+
+    /**
+     * Isolates the records that make a batch fail. Records applied before an
+     * infrastructure failure are applied again on redelivery, which the
+     * version-ordered upsert turns into stale no-ops.
+     */
+    private IngestionResult upsertIndividually(List<PatientIngestionRecord> valid) {
+        int inserted = 0;
+        int updated = 0;
+        int stale = 0;
+        int missing = 0;
+        List<IngestionResult.Rejection> rejected = new ArrayList<>();
+        for (PatientIngestionRecord record : valid) {
+            try {
+                IngestionResult result = ingestionService.upsertPatients(List.of(record));
+                inserted += result.inserted();
+                updated += result.updated();
+                stale += result.stale();
+                missing += result.missing();
+                rejected.addAll(result.rejected());
+            } catch (RuntimeException e) {
+                if (isInfrastructureFailure(e)) {
+                    throw e;
+                }
+                rejected.add(new IngestionResult.Rejection(record, "Ingestion failed: " + e.getMessage()));
+            }
+        }
+        return new IngestionResult(inserted, updated, stale, missing, rejected);
+    }
+
+    private static boolean isInfrastructureFailure(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private static void awaitAll(List<CompletableFuture<SendResult<String, String>>> sends) {
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private String validate(PatientRegistrationMessage message) {
+        Set<ConstraintViolation<PatientRegistrationMessage>> violations = validator.validate(message);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private CompletableFuture<SendResult<String, String>> deadLetter(ConsumerRecord<String, String> record, String error) {
+        log.warn("Dead-lettering record {}-{}@{}: {}", record.topic(), record.partition(), record.offset(), error);
+        ProducerRecord<String, String> deadLetter = new ProducerRecord<>(deadLetterTopic, record.key(), record.value());
+        deadLetter.headers().add(ERROR_HEADER, error.getBytes(StandardCharsets.UTF_8));
+        return kafkaTemplate.send(deadLetter);
+    }
+
+    private static Counter recordCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("patients.ingestion.records")
+                .description("Feed records processed, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+}
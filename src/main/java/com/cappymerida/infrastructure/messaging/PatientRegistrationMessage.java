@@ -0,0 +1,47 @@
+package com.cappymerida.infrastructure.messaging;
+
+import com.cappymerida.domain.enums.Status;
+import com.cappymerida.domain.model.ContactInfo;
+import com.cappymerida.domain.model.Demographics;
+import com.cappymerida.domain.model.EmergencyContact;
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.model.PatientIngestionRecord;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * Registration / demographic update as published by the hospital ADT system.
+ */
+@Data
+public class PatientRegistrationMessage {
+
+    @NotBlank(message = "External id is required")
+    private String externalId;
+
+    @NotNull(message = "Source version is required")
+    private Long version;
+
+    private Status status = Status.ACTIVE;
+
+    @NotNull(message = "Demographics are required")
+    @Valid
+    private Demographics demographics;
+
+    @Valid
+    private ContactInfo contactInfo;
+
+    @Valid
+    private EmergencyContact emergencyContact;
+
+    public PatientIngestionRecord toRecord() {
+        Patient patient = new Patient();
+        patient.setDemographics(demographics);
+        patient.setContactInfo(contactInfo);
+        patient.setEmergencyContact(emergencyContact);
+        patient.setStatus(status != null ? status : Status.ACTIVE);
+        return new PatientIngestionRecord(externalId, version, patient);
+    }
+
+}
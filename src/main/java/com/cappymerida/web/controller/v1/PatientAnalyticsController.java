@@ -0,0 +1,79 @@
+package com.cappymerida.web.controller.v1;
+
+import com.cappymerida.application.service.PatientAnalyticsService;
+import com.cappymerida.domain.enums.CohortDimension;
+import com.cappymerida.domain.enums.Gender;
+import com.cappymerida.domain.enums.MaritalStatus;
+import com.cappymerida.domain.enums.Status;
+import com.cappymerida.domain.model.CohortQuery;
+import com.cappymerida.domain.model.CohortResult;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/v1/patients/analytics")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Patient Analytics", description = "Cohort distributions over the patient registry")
+public class PatientAnalyticsController {
+
+    private final PatientAnalyticsService analyticsService;
+
+    @GetMapping
+    @Operation(summary = "Cohort distribution", description = "Count patients grouped by the requested dimensions")
+    @ApiResponse(responseCode = "200", description = "Cohort counts")
+    @ApiResponse(responseCode = "503", description = "Analytics snapshot is still loading")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CohortResult> getCohorts(
+            @Parameter(description = "Dimensions to group by")
+            @RequestParam(defaultValue = "") List<CohortDimension> groupBy,
+
+            @Parameter(description = "Gender filter")
+            @RequestParam(required = false) List<Gender> gender,
+
+            @Parameter(description = "Marital status filter")
+            @RequestParam(required = false) List<MaritalStatus> maritalStatus,
+
+            @Parameter(description = "Patient status filter")
+            @RequestParam(required = false) List<Status> status,
+
+            @Parameter(description = "City filter (case-insensitive)")
+            @RequestParam(required = false) List<String> city,
+
+            @Parameter(description = "Minimum age (inclusive)")
+            @RequestParam(required = false) Integer minAge,
+
+            @Parameter(description = "Maximum age (inclusive)")
+            @RequestParam(required = false) Integer maxAge) {
+
+        log.debug("Cohort query grouped by {}", groupBy);
+
+        CohortQuery query = new CohortQuery(
+                Set.copyOf(groupBy),
+                gender != null ? Set.copyOf(gender) : Set.of(),
+                maritalStatus != null ? Set.copyOf(maritalStatus) : Set.of(),
+                status != null ? Set.copyOf(status) : Set.of(),
+                city != null ? Set.copyOf(city) : Set.of(),
+                minAge,
+                maxAge);
+
+        return analyticsService.queryCohorts(query)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+}
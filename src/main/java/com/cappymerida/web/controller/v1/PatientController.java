@@ -1,9 +1,13 @@
 package com.cappymerida.web.controller.v1;
 
 import com.cappymerida.application.service.PatientService;
+import com.cappymerida.domain.enums.PatientSortField;
 import com.cappymerida.domain.enums.Status;
 import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.model.PatientHistoryEntry;
 import com.cappymerida.domain.model.PatientStatistics;
+import com.cappymerida.web.dto.PatientHistoryResponse;
+import com.cappymerida.web.dto.PatientLookupRequest;
 import com.cappymerida.web.dto.PatientRequest;
 import com.cappymerida.web.dto.PatientResponse;
 import io.swagger.v3.oas.annotations.Operation;
@@ -31,6 +35,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/patients")
 @RequiredArgsConstructor
@@ -44,6 +50,7 @@ public class PatientController {
     @Operation(summary = "Create new patient", description = "Register a new patient in the system")
     @ApiResponse(responseCode = "201", description = "Patient created successfully")
     @ApiResponse(responseCode = "400", description = "Invalid patient data")
+    @ApiResponse(responseCode = "409", description = "Email or SSN already registered")
     @PreAuthorize("hasRole('ROLE_DOCTOR') or hasRole('ROLE_NURSE') or hasRole('ROLE_ADMIN')")
     public ResponseEntity<PatientResponse> createPatient(@Valid @RequestBody PatientRequest request) {
         log.info("Creating new patient: {}", request.getDemographics().getFullName());
@@ -71,6 +78,33 @@ public class PatientController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get patients by IDs", description = "Retrieve several patients in one call; unknown IDs are omitted")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('NURSE') or hasRole('ADMIN')")
+    public ResponseEntity<List<PatientResponse>> getPatients(
+            @Parameter(description = "Comma-separated patient IDs")
+            @RequestParam List<String> ids) {
+
+        log.debug("Getting {} patients by ID", ids.size());
+
+        List<PatientResponse> response = patientService.findPatientsByIds(ids).stream()
+                .map(PatientResponse::from)
+                .toList();
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/lookup")
+    @Operation(summary = "Look up patients by IDs", description = "Same as GET with ids, for ID lists too long for a query string")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('NURSE') or hasRole('ADMIN')")
+    public ResponseEntity<List<PatientResponse>> lookupPatients(@Valid @RequestBody PatientLookupRequest request) {
+        log.debug("Looking up {} patients by ID", request.getIds().size());
+
+        List<PatientResponse> response = patientService.findPatientsByIds(request.getIds()).stream()
+                .map(PatientResponse::from)
+                .toList();
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping
     @Operation(summary = "Search patients", description = "Search patients with optional filters")
     @PreAuthorize("hasRole('DOCTOR') or hasRole('NURSE') or hasRole('ADMIN')")
@@ -78,16 +112,19 @@ public class PatientController {
             @Parameter(description = "Search term (name or email)")
             @RequestParam(required = false) String search,
 
-            @Parameter(description = "Patient status filter")
+            @Parameter(description = "Patient status filter (defaults to ACTIVE)")
             @RequestParam(required = false) Status status,
 
+            @Parameter(description = "Search every status when no status filter is given")
+            @RequestParam(defaultValue = "false") boolean includeInactive,
+
             @Parameter(description = "Page number (0-based)")
             @RequestParam(defaultValue = "0") int page,
 
             @Parameter(description = "Page size")
             @RequestParam(defaultValue = "20") int size,
 
-            @Parameter(description = "Sort field")
+            @Parameter(description = "Sort field: createdAt, updatedAt, lastName, firstName or dateOfBirth")
             @RequestParam(defaultValue = "createdAt") String sortBy,
 
             @Parameter(description = "Sort direction")
@@ -95,10 +132,15 @@ public class PatientController {
 
         log.debug("Searching patients with term: {}, status: {}", search, status);
 
-        Sort sort = Sort.by(Sort.Direction.fromString(sortDir), sortBy);
+        // Only indexed fields; an arbitrary column would turn into a full sort of the table
+        PatientSortField sortField = PatientSortField.fromParameter(sortBy)
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported sort field: " + sortBy));
+        Sort sort = Sort.by(Sort.Direction.fromString(sortDir), sortField.getProperty());
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<Patient> patients = patientService.searchPatients(search, status, pageable);
+        // Active-only by default keeps the search on the active partition
+        Status effectiveStatus = status == null && !includeInactive ? Status.ACTIVE : status;
+        Page<Patient> patients = patientService.searchPatients(search, effectiveStatus, pageable);
         Page<PatientResponse> response = patients.map(PatientResponse::from);
 
         return ResponseEntity.ok(response);
@@ -108,6 +150,8 @@ public class PatientController {
     @Operation(summary = "Update patient", description = "Update existing patient information")
     @ApiResponse(responseCode = "200", description = "Patient updated successfully")
     @ApiResponse(responseCode = "404", description = "Patient not found")
+    @ApiResponse(responseCode = "409", description = "Email already registered for another patient, or the patient " +
+            "was changed concurrently; the body and ETag carry the current version")
     @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
     public ResponseEntity<PatientResponse> updatePatient(
             @PathVariable String id,
@@ -120,12 +164,8 @@ public class PatientController {
         patient.setContactInfo(request.getContactInfo());
         patient.setEmergencyContact(request.getEmergencyContact());
 
-        try {
-            Patient updatedPatient = patientService.updatePatient(id, patient);
-            return ResponseEntity.ok(PatientResponse.from(updatedPatient));
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.notFound().build();
-        }
+        Patient updatedPatient = patientService.updatePatient(id, patient);
+        return ResponseEntity.ok(PatientResponse.from(updatedPatient));
     }
 
     @PatchMapping("/{id}/deactivate")
@@ -134,12 +174,8 @@ public class PatientController {
     public ResponseEntity<Void> deactivatePatient(@PathVariable String id) {
         log.info("Deactivating patient with ID: {}", id);
 
-        try {
-            patientService.deactivatePatient(id);
-            return ResponseEntity.ok().build();
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.notFound().build();
-        }
+        patientService.deactivatePatient(id);
+        return ResponseEntity.ok().build();
     }
 
     @PatchMapping("/{id}/activate")
@@ -148,12 +184,8 @@ public class PatientController {
     public ResponseEntity<Void> activatePatient(@PathVariable String id) {
         log.info("Activating patient with ID: {}", id);
 
-        try {
-            patientService.activatePatient(id);
-            return ResponseEntity.ok().build();
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.notFound().build();
-        }
+        patientService.activatePatient(id);
+        return ResponseEntity.ok().build();
     }
 
     @DeleteMapping("/{id}")
@@ -162,12 +194,28 @@ public class PatientController {
     public ResponseEntity<Void> deletePatient(@PathVariable String id) {
         log.info("Deleting patient with ID: {}", id);
 
-        try {
-            patientService.deletePatient(id);
-            return ResponseEntity.ok().build();
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.notFound().build();
-        }
+        patientService.deletePatient(id);
+        return ResponseEntity.ok().build();
+    }
+
+    @GetMapping("/{id}/history")
+    @Operation(summary = "Get patient change history", description = "Field-level changes, newest first, paged by cursor")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<PatientHistoryResponse> getPatientHistory(
+            @PathVariable String id,
+
+            @Parameter(description = "Cursor from the previous page (nextCursor)")
+            @RequestParam(required = false) Long before,
+
+            @Parameter(description = "Page size (max 200)")
+            @RequestParam(defaultValue = "50") int size) {
+
+        log.debug("Getting history for patient: {}", id);
+
+        int pageSize = Math.min(Math.max(size, 1), 200);
+        // One extra row tells us whether another page exists
+        List<PatientHistoryEntry> entries = patientService.findPatientHistory(id, before, pageSize + 1);
+        return ResponseEntity.ok(PatientHistoryResponse.of(entries, pageSize));
     }
 
     @GetMapping("/statistics")
@@ -0,0 +1,133 @@
+package com.cappymerida.web.controller.v2;
+
+import com.cappymerida.application.service.ReactivePatientService;
+import com.cappymerida.domain.enums.PatientSortField;
+import com.cappymerida.domain.enums.Status;
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.web.dto.PatientRequest;
+import com.cappymerida.web.dto.PatientResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking variant of the v1 patient API for high fan-out clients. Handlers
+ * return Reactor types, so the request thread is released while R2DBC works and
+ * streamed results are written as the client consumes them.
+ */
+@RestController("patientControllerV2")
+@RequestMapping("/api/v2/patients")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Patient Management (reactive)", description = "Non-blocking patient APIs for high-concurrency clients")
+public class PatientController {
+
+    // Upper bound on rows requested from the database ahead of the client
+    private static final int STREAM_PREFETCH = 256;
+
+    private final ReactivePatientService reactivePatientService;
+
+    @PostMapping
+    @Operation(summary = "Create new patient", description = "Register a new patient in the system")
+    @ApiResponse(responseCode = "201", description = "Patient created successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid patient data")
+    @ApiResponse(responseCode = "409", description = "Email or SSN already registered")
+    @PreAuthorize("hasRole('ROLE_DOCTOR') or hasRole('ROLE_NURSE') or hasRole('ROLE_ADMIN')")
+    public Mono<ResponseEntity<PatientResponse>> createPatient(@Valid @RequestBody PatientRequest request) {
+        log.info("Creating new patient (v2): {}", request.getDemographics().getFullName());
+
+        Patient patient = new Patient();
+        patient.setDemographics(request.getDemographics());
+        patient.setContactInfo(request.getContactInfo());
+        patient.setEmergencyContact(request.getEmergencyContact());
+
+        return reactivePatientService.createPatient(patient)
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED).body(PatientResponse.from(created)));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get patient by ID", description = "Retrieve patient information by ID")
+    @ApiResponse(responseCode = "200", description = "Patient found")
+    @ApiResponse(responseCode = "404", description = "Patient not found")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('NURSE') or hasRole('ADMIN')")
+    public Mono<PatientResponse> getPatient(@PathVariable String id) {
+        log.debug("Getting patient by ID (v2): {}", id);
+        return reactivePatientService.findPatientById(id).map(PatientResponse::from);
+    }
+
+    @GetMapping
+    @Operation(summary = "Search patients", description = "Search patients with optional filters, newest first by default")
+    @ApiResponse(responseCode = "400", description = "Page, size or sort parameters invalid")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('NURSE') or hasRole('ADMIN')")
+    public Mono<List<PatientResponse>> searchPatients(
+            @Parameter(description = "Search term (name or email)")
+            @RequestParam(required = false) String search,
+
+            @Parameter(description = "Patient status filter (defaults to ACTIVE)")
+            @RequestParam(required = false) Status status,
+
+            @Parameter(description = "Search every status when no status filter is given")
+            @RequestParam(defaultValue = "false") boolean includeInactive,
+
+            @Parameter(description = "Page number (0-based)")
+            @RequestParam(defaultValue = "0") @Min(0) int page,
+
+            @Parameter(description = "Page size (max 200)")
+            @RequestParam(defaultValue = "20") @Min(1) @Max(200) int size,
+
+            @Parameter(description = "Sort field: createdAt, updatedAt, lastName, firstName or dateOfBirth")
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+
+            @Parameter(description = "Sort direction")
+            @RequestParam(defaultValue = "desc") String sortDir) {
+
+        log.debug("Searching patients (v2) with term: {}, status: {}", search, status);
+
+        // Same rules as v1: indexed sort fields only, active partition unless asked otherwise
+        PatientSortField sortField = PatientSortField.fromParameter(sortBy)
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported sort field: " + sortBy));
+        Sort.Direction direction = Sort.Direction.fromString(sortDir);
+        Status effectiveStatus = status == null && !includeInactive ? Status.ACTIVE : status;
+
+        return reactivePatientService.searchPatients(search, effectiveStatus, sortField, direction, page, size)
+                .map(PatientResponse::from)
+                .collectList();
+    }
+
+    @GetMapping(value = "/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @Operation(summary = "Stream patients", description = "Stream all patients as NDJSON or server-sent events")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('NURSE') or hasRole('ADMIN')")
+    public Flux<PatientResponse> streamPatients(
+            @Parameter(description = "Patient status filter")
+            @RequestParam(required = false) Status status) {
+
+        log.debug("Streaming patients (v2) with status: {}", status);
+
+        return reactivePatientService.streamPatients(status)
+                .limitRate(STREAM_PREFETCH)
+                .map(PatientResponse::from);
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.cappymerida.web.dto;
+
+import com.cappymerida.domain.model.PatientHistoryEntry;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class PatientHistoryResponse {
+
+    private List<PatientHistoryEntry> entries;
+
+    // Pass as "before" to fetch the next (older) page; null on the last page
+    private Long nextCursor;
+
+    public static PatientHistoryResponse of(List<PatientHistoryEntry> fetched, int size) {
+        PatientHistoryResponse response = new PatientHistoryResponse();
+        boolean hasMore = fetched.size() > size;
+        response.setEntries(hasMore ? fetched.subList(0, size) : fetched);
+        response.setNextCursor(hasMore ? fetched.get(size - 1).id() : null);
+        return response;
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.cappymerida.web.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class PatientLookupRequest {
+
+    @NotEmpty(message = "At least one id is required")
+    @Size(max = 200, message = "At most 200 ids can be looked up at once")
+    private List<String> ids;
+
+}
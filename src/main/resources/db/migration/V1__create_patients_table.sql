@@ -0,0 +1,38 @@
+-- Baseline schema for the patients table, previously maintained by hibernate ddl-auto.
+-- Existing databases are baselined at V1 (spring.flyway.baseline-on-migrate), so this only
+-- runs on fresh schemas.
+CREATE TABLE IF NOT EXISTS patients (
+    id                     VARCHAR(255) PRIMARY KEY,
+
+    first_name             VARCHAR(255) NOT NULL,
+    last_name              VARCHAR(255) NOT NULL,
+    middle_name            VARCHAR(255),
+    date_of_birth          DATE         NOT NULL,
+    gender                 VARCHAR(255) NOT NULL,
+    social_security_number VARCHAR(255),
+    preferred_language     VARCHAR(255),
+    marital_status         VARCHAR(255),
+
+    contact_email          VARCHAR(255),
+    contact_phone          VARCHAR(255),
+    contact_alt_phone      VARCHAR(255),
+    address_street         VARCHAR(255),
+    address_city           VARCHAR(255),
+    address_state          VARCHAR(255),
+    address_zip            VARCHAR(255),
+    address_country        VARCHAR(255),
+
+    emergency_name         VARCHAR(255),
+    emergency_phone        VARCHAR(255),
+    emergency_email        VARCHAR(255),
+    emergency_relationship VARCHAR(255),
+
+    status                 VARCHAR(255) NOT NULL,
+    created_at             TIMESTAMP(6) NOT NULL,
+    updated_at             TIMESTAMP(6) NOT NULL,
+    version                BIGINT
+);
+
+CREATE INDEX IF NOT EXISTS idx_patients_contact_email ON patients (contact_email);
+CREATE INDEX IF NOT EXISTS idx_patients_ssn ON patients (social_security_number);
+CREATE INDEX IF NOT EXISTS idx_patients_status ON patients (status);
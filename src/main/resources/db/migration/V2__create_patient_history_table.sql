@@ -0,0 +1,15 @@
+-- Field-level change history, written asynchronously in batches by PatientHistoryWriter.
+-- No foreign key to patients: history must outlive a deleted patient record.
+CREATE TABLE patient_history (
+    id              BIGSERIAL PRIMARY KEY,
+    patient_id      VARCHAR(255) NOT NULL,
+    patient_version BIGINT,
+    field           VARCHAR(100) NOT NULL,
+    old_value       TEXT,
+    new_value       TEXT,
+    changed_by      VARCHAR(255),
+    changed_at      TIMESTAMP(6) NOT NULL
+);
+
+-- Keyset pagination: WHERE patient_id = ? AND id < ? ORDER BY id DESC
+CREATE INDEX idx_patient_history_patient_id ON patient_history (patient_id, id DESC);
@@ -0,0 +1,2 @@
+-- Supports the (updated_at, id) keyset scan used by the cohort analytics refresh
+CREATE INDEX IF NOT EXISTS idx_patients_updated_at_id ON patients (updated_at, id);
@@ -0,0 +1,85 @@
+-- Declarative partitioning of patients by status.
+--
+--   patients                      LIST (status)
+--   ├── patients_active           'ACTIVE'
+--   ├── patients_inactive         'INACTIVE', 'DECEASED'   LIST (archived)
+--   │   ├── patients_inactive_current   archived = false
+--   │   └── patients_archive            archived = true
+--   └── patients_default          anything else
+--
+-- Searches filtered on status only touch the matching partition, and the archive
+-- partition (rows moved there by PatientArchivalService) stays out of the way of
+-- index maintenance and vacuum on the hot data. The primary key has to include
+-- the partition keys; ids remain UUIDs generated by the application.
+
+ALTER TABLE patients RENAME TO patients_legacy;
+
+CREATE TABLE patients (
+    id                     VARCHAR(255) NOT NULL,
+
+    first_name             VARCHAR(255) NOT NULL,
+    last_name              VARCHAR(255) NOT NULL,
+    middle_name            VARCHAR(255),
+    date_of_birth          DATE         NOT NULL,
+    gender                 VARCHAR(255) NOT NULL,
+    social_security_number VARCHAR(255),
+    preferred_language     VARCHAR(255),
+    marital_status         VARCHAR(255),
+
+    contact_email          VARCHAR(255),
+    contact_phone          VARCHAR(255),
+    contact_alt_phone      VARCHAR(255),
+    address_street         VARCHAR(255),
+    address_city           VARCHAR(255),
+    address_state          VARCHAR(255),
+    address_zip            VARCHAR(255),
+    address_country        VARCHAR(255),
+
+    emergency_name         VARCHAR(255),
+    emergency_phone        VARCHAR(255),
+    emergency_email        VARCHAR(255),
+    emergency_relationship VARCHAR(255),
+
+    status                 VARCHAR(255) NOT NULL,
+    archived               BOOLEAN      NOT NULL DEFAULT FALSE,
+    created_at             TIMESTAMP(6) NOT NULL,
+    updated_at             TIMESTAMP(6) NOT NULL,
+    version                BIGINT,
+
+    PRIMARY KEY (id, status, archived)
+) PARTITION BY LIST (status);
+
+CREATE TABLE patients_active PARTITION OF patients FOR VALUES IN ('ACTIVE');
+
+CREATE TABLE patients_inactive PARTITION OF patients FOR VALUES IN ('INACTIVE', 'DECEASED')
+    PARTITION BY LIST (archived);
+CREATE TABLE patients_inactive_current PARTITION OF patients_inactive FOR VALUES IN (FALSE);
+CREATE TABLE patients_archive PARTITION OF patients_inactive FOR VALUES IN (TRUE);
+
+CREATE TABLE patients_default PARTITION OF patients DEFAULT;
+
+INSERT INTO patients (id, first_name, last_name, middle_name, date_of_birth, gender,
+                      social_security_number, preferred_language, marital_status,
+                      contact_email, contact_phone, contact_alt_phone, address_street, address_city,
+                      address_state, address_zip, address_country,
+                      emergency_name, emergency_phone, emergency_email, emergency_relationship,
+                      status, archived, created_at, updated_at, version)
+SELECT id, first_name, last_name, middle_name, date_of_birth, gender,
+       social_security_number, preferred_language, marital_status,
+       contact_email, contact_phone, contact_alt_phone, address_street, address_city,
+       address_state, address_zip, address_country,
+       emergency_name, emergency_phone, emergency_email, emergency_relationship,
+       status, FALSE, created_at, updated_at, version
+FROM patients_legacy;
+
+DROP TABLE patients_legacy;
+
+-- Built after the bulk copy; created on the parent so every partition gets its own
+CREATE INDEX idx_patients_contact_email ON patients (contact_email);
+CREATE INDEX idx_patients_ssn ON patients (social_security_number);
+CREATE INDEX idx_patients_updated_at_id ON patients (updated_at, id);
+
+-- Archived rows are rarely written; let autovacuum leave them alone longer
+ALTER TABLE patients_archive SET (autovacuum_vacuum_scale_factor = 0.4, autovacuum_analyze_scale_factor = 0.2);
+
+ANALYZE patients;
@@ -0,0 +1,13 @@
+-- One index per sortable field accepted by search (PatientSortField);
+-- updated_at is covered by idx_patients_updated_at_id.
+CREATE INDEX IF NOT EXISTS idx_patients_created_at ON patients (created_at);
+CREATE INDEX IF NOT EXISTS idx_patients_last_name ON patients (last_name);
+CREATE INDEX IF NOT EXISTS idx_patients_first_name ON patients (first_name);
+CREATE INDEX IF NOT EXISTS idx_patients_date_of_birth ON patients (date_of_birth);
+
+-- Search uses LOWER(column) LIKE '%term%', which a btree cannot serve
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_patients_first_name_trgm ON patients USING gin (LOWER(first_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_patients_last_name_trgm ON patients USING gin (LOWER(last_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_patients_contact_email_trgm ON patients USING gin (LOWER(contact_email) gin_trgm_ops);
@@ -0,0 +1,9 @@
+-- Maps upstream (ADT feed) identifiers to patients. Kept outside the partitioned
+-- patients table so external_id can carry its own unique key for ON CONFLICT
+-- upserts; source_version orders replays.
+CREATE TABLE patient_external_ids (
+    external_id    VARCHAR(255) PRIMARY KEY,
+    patient_id     VARCHAR(255) NOT NULL UNIQUE,
+    source_version BIGINT       NOT NULL,
+    updated_at     TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,7 @@
+-- social_security_number now holds AES-GCM ciphertext (enc:v1:<keyId>:...), which
+-- cannot be searched. Equality lookups go through a keyed HMAC of the SSN instead.
+-- Existing rows are encrypted and indexed by PatientSsnRotationService after deploy.
+ALTER TABLE patients ADD COLUMN ssn_blind_index VARCHAR(64);
+
+DROP INDEX IF EXISTS idx_patients_ssn;
+CREATE INDEX idx_patients_ssn_blind_index ON patients (ssn_blind_index);
@@ -0,0 +1,5 @@
+-- Rows written before V7 carry an SSN but no blind index until PatientSsnRotationService
+-- backfills them. Normally empty, this lets the startup check and the rotation scan
+-- find such rows without reading the whole table.
+CREATE INDEX idx_patients_ssn_blind_index_missing ON patients (id)
+    WHERE ssn_blind_index IS NULL AND social_security_number IS NOT NULL;
@@ -0,0 +1,55 @@
+-- Global uniqueness of patients.id.
+--
+-- Since V4 the primary key of the partitioned patients table is (id, status, archived):
+-- Postgres only enforces unique indexes that contain the partition keys, so the same
+-- id could exist once per partition. patient_ids holds every id exactly once and is
+-- maintained by row triggers on the parent, so an insert of an id that already exists
+-- in any partition fails with a unique violation on patient_ids_pkey.
+--
+-- Trade-off: every insert and delete on patients also writes one row and one index
+-- entry here, inside the same transaction. Hash partitioning on id would enforce
+-- uniqueness without it, but would lose the status pruning V4 was added for.
+--
+-- A status change that moves a row between partitions is executed as a delete plus an
+-- insert; the AFTER DELETE trigger fires before the AFTER INSERT one, so the id is
+-- released and claimed again within the statement. TRUNCATE fires no row triggers;
+-- clear patient_ids alongside patients if a table is ever truncated.
+
+-- Writers wait until the triggers exist, so no insert slips between backfill and trigger;
+-- reads carry on
+LOCK TABLE patients IN SHARE ROW EXCLUSIVE MODE;
+
+CREATE TABLE patient_ids (
+    id VARCHAR(255) PRIMARY KEY
+);
+
+-- Fails the migration if V4 already let a duplicate in; resolve it by hand before retrying
+INSERT INTO patient_ids (id)
+SELECT id FROM patients;
+
+CREATE FUNCTION patient_ids_claim() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO patient_ids (id) VALUES (NEW.id);
+    RETURN NULL;
+END;
+$$;
+
+CREATE FUNCTION patient_ids_release() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    DELETE FROM patient_ids WHERE id = OLD.id;
+    RETURN NULL;
+END;
+$$;
+
+-- Defined on the parent, so every current and future partition inherits them
+CREATE TRIGGER patients_claim_id
+    AFTER INSERT ON patients
+    FOR EACH ROW EXECUTE FUNCTION patient_ids_claim();
+
+CREATE TRIGGER patients_release_id
+    AFTER DELETE ON patients
+    FOR EACH ROW EXECUTE FUNCTION patient_ids_release();
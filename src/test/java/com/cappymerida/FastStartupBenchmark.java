@@ -0,0 +1,94 @@
+package com.cappymerida;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the service with the fast-start profile against a fresh Postgres (Flyway
+ * applied once beforehand, as on a redeploy) and prints the time to ready plus the
+ * slowest steps of the startup timeline. Runs on the JIT without AOT or CDS, so the
+ * number is an upper bound for the packaged fast-start build; the 3 s target is
+ * reported, not asserted.
+ * <pre>
+ * ./gradlew benchmark --tests '*FastStartupBenchmark'
+ * </pre>
+ */
+@Tag("benchmark")
+@Testcontainers(disabledWithoutDocker = true)
+class FastStartupBenchmark {
+
+    private static final Duration TARGET = Duration.ofSeconds(3);
+    private static final int SLOWEST_STEPS = 15;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Test
+    void timeToReady() {
+        // First start migrates the schema; only the second one is measured
+        start().close();
+
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(4096);
+        AtomicReference<Duration> ready = new AtomicReference<>();
+        SpringApplication application = application();
+        application.setApplicationStartup(startup);
+        application.addListeners(event -> {
+            if (event instanceof ApplicationReadyEvent readyEvent) {
+                ready.set(readyEvent.getTimeTaken());
+            }
+        });
+        application.run(arguments()).close();
+
+        StartupTimeline timeline = startup.getBufferedTimeline();
+        System.out.printf("Fast-start ready in %d ms (target %d ms, %s)%n", ready.get().toMillis(), TARGET.toMillis(),
+                ready.get().compareTo(TARGET) <= 0 ? "met" : "missed");
+        timeline.getEvents().stream()
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(SLOWEST_STEPS)
+                .forEach(event -> System.out.printf("%6d ms  %s %s%n", event.getDuration().toMillis(),
+                        event.getStartupStep().getName(), event.getStartupStep().getTags()));
+
+        assertThat(ready.get()).isPositive();
+    }
+
+    private static ConfigurableApplicationContext start() {
+        return application().run(arguments());
+    }
+
+    private static SpringApplication application() {
+        return new SpringApplication(PatienServiceApplication.class);
+    }
+
+    private static String[] arguments() {
+        String r2dbcUrl = "r2dbc:postgresql://" + POSTGRES.getHost() + ":" + POSTGRES.getFirstMappedPort()
+                + "/" + POSTGRES.getDatabaseName();
+        return new String[]{
+                "--spring.profiles.active=fast-start",
+                "--spring.datasource.url=" + POSTGRES.getJdbcUrl(),
+                "--spring.datasource.username=" + POSTGRES.getUsername(),
+                "--spring.datasource.password=" + POSTGRES.getPassword(),
+                "--spring.r2dbc.url=" + r2dbcUrl,
+                "--spring.r2dbc.username=" + POSTGRES.getUsername(),
+                "--spring.r2dbc.password=" + POSTGRES.getPassword(),
+                "--spring.cloud.config.enabled=false",
+                "--eureka.client.enabled=false",
+                "--patients.ingestion.enabled=false",
+                "--server.port=0"
+        };
+    }
+
+}
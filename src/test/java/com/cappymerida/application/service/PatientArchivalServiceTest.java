@@ -0,0 +1,79 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.enums.Gender;
+import com.cappymerida.domain.model.ContactInfo;
+import com.cappymerida.domain.model.Demographics;
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.repository.PatientRepository;
+import com.cappymerida.infrastructure.crypto.SsnCipher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(SsnCipher.class)
+class PatientArchivalServiceTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void copyLoadedBeforeArchivalCannotUnarchiveRow() {
+        Patient patient = new Patient();
+        patient.setDemographics(new Demographics("Old", "Chart", null, LocalDate.of(1940, 1, 1), Gender.OTHER,
+                null, null, null));
+        patient.setContactInfo(new ContactInfo());
+        patient.deactivate();
+        String id = patientRepository.save(patient).getId();
+        jdbcTemplate.update("UPDATE patients SET updated_at = now() - interval '2 years' WHERE id = ?", id);
+
+        // Loaded by a request that is still in flight when the job runs
+        Patient stale = patientRepository.findById(id).orElseThrow();
+
+        new PatientArchivalService(patientRepository, new SimpleMeterRegistry(), Duration.ofDays(365), 100, 10)
+                .archiveInactivePatients();
+        assertThat(jdbcTemplate.queryForObject("SELECT archived FROM patients WHERE id = ?", Boolean.class, id))
+                .isTrue();
+
+        stale.getContactInfo().setPhoneNumber("555-0100");
+        assertThatThrownBy(() -> patientRepository.save(stale))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(jdbcTemplate.queryForObject("SELECT archived FROM patients WHERE id = ?", Boolean.class, id))
+                .isTrue();
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PatientBatchLoaderTest {
+
+    private final PatientRepository patientRepository = mock(PatientRepository.class);
+    private PatientBatchLoader loader;
+
+    @AfterEach
+    void tearDown() {
+        loader.destroy();
+    }
+
+    @Test
+    void coalescesLookupsWithinWindowIntoOneQuery() {
+        loader = new PatientBatchLoader(patientRepository, Duration.ofMillis(50), 200, 1);
+        when(patientRepository.findAllById(anyIterable())).thenReturn(List.of(patient("a")));
+
+        CompletableFuture<Optional<Patient>> first = loader.loadAsync("a");
+        CompletableFuture<Optional<Patient>> duplicate = loader.loadAsync("a");
+        CompletableFuture<Optional<Patient>> missing = loader.loadAsync("b");
+
+        assertThat(duplicate).isSameAs(first);
+        assertThat(first.join()).map(Patient::getId).contains("a");
+        assertThat(missing.join()).isEmpty();
+        verify(patientRepository, times(1)).findAllById(anyIterable());
+    }
+
+    @Test
+    void flushesImmediatelyWhenBatchIsFull() {
+        loader = new PatientBatchLoader(patientRepository, Duration.ofMinutes(1), 2, 1);
+        when(patientRepository.findAllById(anyIterable()))
+                .thenAnswer(invocation -> invocation.<Collection<String>>getArgument(0).stream()
+                        .map(PatientBatchLoaderTest::patient)
+                        .toList());
+
+        CompletableFuture<Optional<Patient>> a = loader.loadAsync("a");
+        CompletableFuture<Optional<Patient>> b = loader.loadAsync("b");
+
+        assertThat(a.orTimeout(5, TimeUnit.SECONDS).join()).isPresent();
+        assertThat(b.join()).isPresent();
+    }
+
+    @Test
+    void fullBatchDoesNotCutNextWindowShort() throws InterruptedException {
+        loader = new PatientBatchLoader(patientRepository, Duration.ofMillis(300), 2, 1);
+        when(patientRepository.findAllById(anyIterable())).thenReturn(List.of());
+
+        loader.loadAsync("a");
+        loader.loadAsync("b").join();
+        Thread.sleep(150);
+        CompletableFuture<Optional<Patient>> next = loader.loadAsync("c");
+
+        // The first window's timer would have fired here had it not been cancelled
+        Thread.sleep(200);
+        assertThat(next).isNotDone();
+        assertThat(next.orTimeout(5, TimeUnit.SECONDS).join()).isEmpty();
+    }
+
+    @Test
+    void failsFastAfterShutdown() {
+        loader = new PatientBatchLoader(patientRepository, Duration.ofMillis(50), 200, 1);
+        loader.destroy();
+
+        assertThatThrownBy(() -> loader.load("a"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static Patient patient(String id) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        return patient;
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.enums.CohortDimension;
+import com.cappymerida.domain.enums.Gender;
+import com.cappymerida.domain.enums.MaritalStatus;
+import com.cappymerida.domain.enums.Status;
+import com.cappymerida.domain.model.CohortQuery;
+import com.cappymerida.domain.model.CohortResult;
+import com.cappymerida.domain.model.PatientCohortRow;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class PatientCohortStoreTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 19);
+    private static final LocalDateTime NOW = TODAY.atStartOfDay();
+
+    @Test
+    void groupsByAgeBandAndGender() {
+        PatientCohortStore store = new PatientCohortStore(4);
+        store.upsert(List.of(
+                row(UUID.randomUUID().toString(), TODAY.minusYears(25), Gender.FEMALE, "Merida", Status.ACTIVE),
+                row(UUID.randomUUID().toString(), TODAY.minusYears(29).plusDays(1), Gender.FEMALE, "merida", Status.ACTIVE),
+                row(UUID.randomUUID().toString(), TODAY.minusYears(30), Gender.MALE, "Cancun", Status.INACTIVE),
+                row("legacy-id", TODAY.minusYears(95), Gender.MALE, null, Status.DECEASED)));
+
+        CohortResult result = store.query(query(Set.of(CohortDimension.AGE_BAND, CohortDimension.GENDER),
+                Set.of(), Set.of(), null, null), TODAY);
+
+        assertThat(result.total()).isEqualTo(4);
+        assertThat(result.buckets()).extracting(CohortResult.Bucket::dimensions, CohortResult.Bucket::count)
+                .containsExactlyInAnyOrder(
+                        tuple(dims("20-29", "FEMALE"), 2L),
+                        tuple(dims("30-39", "MALE"), 1L),
+                        tuple(dims("90+", "MALE"), 1L));
+    }
+
+    @Test
+    void filtersByStatusCityAndAgeRange() {
+        PatientCohortStore store = new PatientCohortStore(4);
+        store.upsert(List.of(
+                row(UUID.randomUUID().toString(), TODAY.minusYears(18), Gender.FEMALE, "Merida", Status.ACTIVE),
+                row(UUID.randomUUID().toString(), TODAY.minusYears(18).plusDays(1), Gender.FEMALE, "Merida", Status.ACTIVE),
+                row(UUID.randomUUID().toString(), TODAY.minusYears(40), Gender.MALE, "MERIDA", Status.INACTIVE)));
+
+        CohortResult result = store.query(query(Set.of(), Set.of(Status.ACTIVE), Set.of("mérida", "merida"), 18, 65), TODAY);
+
+        assertThat(result.total()).isEqualTo(1);
+    }
+
+    @Test
+    void upsertOverwritesExistingPatient() {
+        String id = UUID.randomUUID().toString();
+        PatientCohortStore store = new PatientCohortStore(1);
+        store.upsert(List.of(row(id, TODAY.minusYears(50), Gender.MALE, "Merida", Status.ACTIVE)));
+        store.upsert(List.of(row(id, TODAY.minusYears(50), Gender.MALE, "Merida", Status.DECEASED)));
+
+        CohortResult result = store.query(query(Set.of(CohortDimension.STATUS), Set.of(), Set.of(), null, null), TODAY);
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(result.buckets()).singleElement()
+                .satisfies(bucket -> assertThat(bucket.dimensions()).containsEntry(CohortDimension.STATUS, "DECEASED"));
+    }
+
+    @Test
+    void aggregatesAcrossManyChunks() {
+        int rows = 300_000;
+        PatientCohortStore store = new PatientCohortStore(rows);
+        List<PatientCohortRow> batch = IntStream.range(0, rows)
+                .mapToObj(i -> row(UUID.randomUUID().toString(), TODAY.minusYears(20 + i % 50),
+                        i % 2 == 0 ? Gender.FEMALE : Gender.MALE, "City " + (i % 7), Status.ACTIVE))
+                .toList();
+        store.upsert(batch);
+
+        CohortResult byGender = store.query(query(Set.of(CohortDimension.GENDER), Set.of(), Set.of(), null, null), TODAY);
+        assertThat(byGender.buckets()).extracting(CohortResult.Bucket::count).containsExactly(150_000L, 150_000L);
+
+        CohortResult byCityAndAge = store.query(query(Set.of(CohortDimension.CITY, CohortDimension.AGE_BAND),
+                Set.of(), Set.of(), null, null), TODAY);
+        assertThat(byCityAndAge.total()).isEqualTo(rows);
+    }
+
+    @Test
+    void watermarkDoesNotMoveBackWhenOlderRowsAreReapplied() {
+        PatientCohortStore store = new PatientCohortStore(2);
+        String id = UUID.randomUUID().toString();
+        store.upsert(List.of(new PatientCohortRow(id, null, null, null, null, Status.ACTIVE, NOW)));
+        store.upsert(List.of(new PatientCohortRow(UUID.randomUUID().toString(), null, null, null, null,
+                Status.ACTIVE, NOW.minusMinutes(1))));
+
+        assertThat(store.watermark()).isEqualTo(NOW);
+        assertThat(store.watermarkId()).isEqualTo(id);
+        assertThat(store.size()).isEqualTo(2);
+    }
+
+    private static CohortQuery query(Set<CohortDimension> groupBy, Set<Status> statuses, Set<String> cities,
+                                     Integer minAge, Integer maxAge) {
+        return new CohortQuery(groupBy, Set.of(), Set.of(), statuses, cities, minAge, maxAge);
+    }
+
+    private static PatientCohortRow row(String id, LocalDate dob, Gender gender, String city, Status status) {
+        return new PatientCohortRow(id, dob, gender, MaritalStatus.SINGLE, city, status, NOW);
+    }
+
+    private static Map<CohortDimension, String> dims(String ageBand, String gender) {
+        return Map.of(CohortDimension.AGE_BAND, ageBand, CohortDimension.GENDER, gender);
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.enums.Gender;
+import com.cappymerida.domain.enums.Status;
+import com.cappymerida.domain.model.ContactInfo;
+import com.cappymerida.domain.model.Demographics;
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.model.PatientFieldChange;
+import com.cappymerida.domain.model.PatientHistoryEntry;
+import com.cappymerida.domain.records.PatientChangedEvent;
+import com.cappymerida.domain.repository.PatientHistoryRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class PatientHistoryServiceTest {
+
+    private final PatientHistoryWriter historyWriter = mock(PatientHistoryWriter.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final PatientHistoryService historyService =
+            new PatientHistoryService(mock(PatientHistoryRepository.class), historyWriter, eventPublisher);
+
+    @Test
+    void diffListsOnlyChangedFields() {
+        Patient patient = patient("123-45-6789");
+        Map<String, String> before = PatientHistoryService.snapshot(patient);
+
+        patient.getContactInfo().setPhoneNumber("555-0199");
+        patient.deactivate();
+
+        assertThat(PatientHistoryService.diff(before, PatientHistoryService.snapshot(patient)))
+                .extracting(PatientFieldChange::field, PatientFieldChange::oldValue, PatientFieldChange::newValue)
+                .containsExactly(
+                        tuple("contactInfo.phoneNumber", "555-0100", "555-0199"),
+                        tuple("status", "ACTIVE", "INACTIVE"));
+    }
+
+    @Test
+    void redactsSocialSecurityNumber() {
+        Patient patient = patient("123-45-6789");
+        Map<String, String> before = PatientHistoryService.snapshot(patient);
+        patient.getDemographics().setSocialSecurityNumber("987-65-4321");
+
+        assertThat(PatientHistoryService.diff(before, PatientHistoryService.snapshot(patient)))
+                .singleElement()
+                .isEqualTo(new PatientFieldChange("demographics.socialSecurityNumber", "***", "***"));
+
+        Patient added = patient(null);
+        Map<String, String> withoutSsn = PatientHistoryService.snapshot(added);
+        added.getDemographics().setSocialSecurityNumber("987-65-4321");
+        assertThat(PatientHistoryService.diff(withoutSsn, PatientHistoryService.snapshot(added)))
+                .singleElement()
+                .isEqualTo(new PatientFieldChange("demographics.socialSecurityNumber", null, "***"));
+    }
+
+    @Test
+    void publishesNothingWhenNothingChanged() {
+        Patient patient = patient("123-45-6789");
+
+        historyService.recordChanges(patient, PatientHistoryService.snapshot(patient));
+
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void enqueuesOneEntryPerChangeWithCommittedVersion() {
+        Patient patient = patient("123-45-6789");
+        patient.setId("p-1");
+        LocalDateTime changedAt = LocalDateTime.of(2026, 3, 1, 9, 30);
+        PatientChangedEvent event = new PatientChangedEvent(patient, List.of(
+                new PatientFieldChange("status", "ACTIVE", "INACTIVE"),
+                new PatientFieldChange("contactInfo.city", "Mérida", "Progreso")), "nurse", changedAt);
+        // Bumped on commit, after the event was published
+        patient.setVersion(4L);
+
+        historyService.onPatientChanged(event);
+
+        ArgumentCaptor<List<PatientHistoryEntry>> entries = ArgumentCaptor.forClass(List.class);
+        verify(historyWriter).enqueue(entries.capture());
+        assertThat(entries.getValue())
+                .extracting(PatientHistoryEntry::patientId, PatientHistoryEntry::patientVersion,
+                        PatientHistoryEntry::field, PatientHistoryEntry::changedBy, PatientHistoryEntry::changedAt)
+                .containsExactly(
+                        tuple("p-1", 4L, "status", "nurse", changedAt),
+                        tuple("p-1", 4L, "contactInfo.city", "nurse", changedAt));
+    }
+
+    private static Patient patient(String ssn) {
+        Patient patient = new Patient();
+        patient.setDemographics(new Demographics("Ana", "López", null, LocalDate.of(1980, 5, 1), Gender.FEMALE,
+                ssn, null, null));
+        patient.setContactInfo(new ContactInfo("ana@example.com", "555-0100", null, null, "Mérida", null, null, null));
+        patient.setStatus(Status.ACTIVE);
+        return patient;
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.model.PatientHistoryEntry;
+import com.cappymerida.domain.repository.PatientHistoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(PatientHistoryRepository.class)
+class PatientHistoryWriterTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private PatientHistoryRepository historyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM patient_history");
+    }
+
+    @Test
+    void persistsOverflowWrittenAfterCommit() {
+        // Worker not started: the queue stays full after the first entry
+        PatientHistoryWriter writer = new PatientHistoryWriter(historyRepository, transactionManager, meterRegistry,
+                1, 500, Duration.ofSeconds(1), 3);
+
+        // Same situation as PatientHistoryService.onPatientChanged: the patient's transaction has committed
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        writer.enqueue(entries("p-overflow", 3));
+                    }
+                }));
+
+        assertThat(meterRegistry.get("patient.history.overflow").counter().count()).isEqualTo(2);
+        assertThat(countFor("p-overflow")).isEqualTo(2);
+    }
+
+    @Test
+    void flushesQueuedEntriesInBoundedBatches() throws InterruptedException {
+        PatientHistoryWriter writer = new PatientHistoryWriter(historyRepository, transactionManager, meterRegistry,
+                10_000, 100, Duration.ofMillis(50), 3);
+        writer.afterPropertiesSet();
+        try {
+            writer.enqueue(entries("p-batched", 1_050));
+
+            await().atMost(Duration.ofSeconds(10)).until(() -> countFor("p-batched") == 1_050);
+            assertThat(meterRegistry.get("patient.history.batch.size").summary().max()).isLessThanOrEqualTo(100);
+            assertThat(meterRegistry.get("patient.history.overflow").counter().count()).isZero();
+        } finally {
+            writer.destroy();
+        }
+    }
+
+    @Test
+    void keepsTheRestOfABatchWhenOneEntryCannotBeWritten() throws InterruptedException {
+        PatientHistoryWriter writer = new PatientHistoryWriter(historyRepository, transactionManager, meterRegistry,
+                10_000, 100, Duration.ofMillis(10), 2);
+        List<PatientHistoryEntry> batch = new ArrayList<>(entries("p-partial", 5));
+        // field is VARCHAR(100): this row fails the multi-row insert every time
+        batch.add(new PatientHistoryEntry(null, "p-partial", 5L, "x".repeat(101), null, null, "nurse",
+                LocalDateTime.of(2026, 3, 1, 9, 30)));
+        writer.enqueue(batch);
+        writer.afterPropertiesSet();
+        try {
+            await().atMost(Duration.ofSeconds(10)).until(() ->
+                    meterRegistry.get("patient.history.dropped").counter().count() == 1);
+            assertThat(countFor("p-partial")).isEqualTo(5);
+            assertThat(meterRegistry.get("patient.history.flush.retries").counter().count()).isEqualTo(1);
+        } finally {
+            writer.destroy();
+        }
+    }
+
+    private int countFor(String patientId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM patient_history WHERE patient_id = ?",
+                Integer.class, patientId);
+    }
+
+    private static List<PatientHistoryEntry> entries(String patientId, int count) {
+        LocalDateTime changedAt = LocalDateTime.of(2026, 3, 1, 9, 30);
+        return IntStream.range(0, count)
+                .mapToObj(i -> new PatientHistoryEntry(null, patientId, (long) i, "contactInfo.phoneNumber",
+                        "555-" + i, "555-" + (i + 1), "nurse", changedAt))
+                .toList();
+    }
+
+}
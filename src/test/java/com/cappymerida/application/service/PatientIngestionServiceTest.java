@@ -0,0 +1,144 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.enums.Gender;
+import com.cappymerida.domain.model.ContactInfo;
+import com.cappymerida.domain.model.Demographics;
+import com.cappymerida.domain.model.IngestionResult;
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.model.PatientIngestionRecord;
+import com.cappymerida.domain.repository.PatientUpsertRepository;
+import com.cappymerida.infrastructure.crypto.SsnCipher;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PatientIngestionServiceTest {
+
+    private final PatientUpsertRepository upsertRepository = mock(PatientUpsertRepository.class);
+    private final SsnCipher ssnCipher = new SsnCipher(true, "k1", "k1:" + key(1), key(2));
+    private final PatientSearchCache searchCache = mock(PatientSearchCache.class);
+    private final PatientHistoryService historyService = mock(PatientHistoryService.class);
+    private final PatientIngestionService service = new PatientIngestionService(upsertRepository,
+            mock(PatientWarmupSnapshot.class), searchCache, historyService, mock(PatientSsnRotationService.class),
+            ssnCipher);
+
+    @Test
+    void rejectsRecordsThatDuplicateAnotherPatientsEmailOrSsn() {
+        when(upsertRepository.findUniqueKeyOwners(anyCollection(), anyCollection())).thenReturn(List.of(
+                // Stored under the same external id: the record's own row, not a conflict
+                new PatientUpsertRepository.UniqueKeyOwner("ADT-1", "ana@example.com", null),
+                // Created through the API
+                new PatientUpsertRepository.UniqueKeyOwner(null, null, ssnCipher.blindIndex("123-45-6789"))));
+        when(upsertRepository.claimKeys(anyList())).thenAnswer(invocation -> invocation
+                .<List<PatientIngestionRecord>>getArgument(0).stream()
+                .map(record -> new PatientUpsertRepository.ClaimedKey(record.externalId(), record.externalId(), true))
+                .toList());
+
+        IngestionResult result = service.upsertPatients(List.of(
+                record("ADT-1", "ana@example.com", "111-11-1111"),
+                record("ADT-2", "ana@example.com", "222-22-2222"),
+                record("ADT-3", "rosa@example.com", "123456789"),
+                record("ADT-4", "luz@example.com", "444-44-4444"),
+                record("ADT-5", "luz.b@example.com", "444 44 4444")));
+
+        assertThat(result.rejected())
+                .extracting(rejection -> rejection.record().externalId(), IngestionResult.Rejection::reason)
+                .containsExactly(
+                        tuple("ADT-2", "Email already exists for another patient"),
+                        tuple("ADT-3", "Social Security Number already exists for another patient"),
+                        tuple("ADT-5", "Social Security Number already exists for another patient"));
+        assertThat(result.inserted()).isEqualTo(2);
+        assertThat(result.stale()).isZero();
+        verify(upsertRepository).claimKeys(argThat(records -> records.stream()
+                .map(PatientIngestionRecord::externalId)
+                .toList()
+                .equals(List.of("ADT-1", "ADT-4"))));
+    }
+
+    @Test
+    void invalidatesSearchesWithEachUpdatedRowsPreviousState() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 2, 3, 4);
+        Patient stored = record("ADT-1", "ana.old@example.com", null).patient();
+        stored.setId("p-1");
+        stored.setCreatedAt(createdAt);
+        when(upsertRepository.claimKeys(anyList()))
+                .thenReturn(List.of(new PatientUpsertRepository.ClaimedKey("ADT-1", "p-1", false)));
+        when(upsertRepository.updatePatients(anyList())).thenReturn(List.of(stored));
+
+        service.upsertPatients(List.of(record("ADT-1", "ana@example.com", null)));
+
+        verify(searchCache).onPatientChanged(
+                argThat(before -> before.email().equals("ana.old@example.com")),
+                argThat(after -> after.email().equals("ana@example.com") && createdAt.equals(after.createdAt())));
+        verify(searchCache, never()).invalidateAll();
+    }
+
+    @Test
+    void recordsHistoryForUpdatesAgainstTheRowsPreviousState() {
+        Patient stored = record("ADT-1", "ana.old@example.com", null).patient();
+        stored.setId("p-1");
+        when(upsertRepository.claimKeys(anyList()))
+                .thenReturn(List.of(new PatientUpsertRepository.ClaimedKey("ADT-1", "p-1", false)));
+        when(upsertRepository.updatePatients(anyList())).thenReturn(List.of(stored));
+
+        service.upsertPatients(List.of(record("ADT-1", "ana@example.com", null)));
+
+        verify(historyService).recordChanges(
+                argThat(patient -> patient.getId().equals("p-1")),
+                argThat(before -> "ana.old@example.com".equals(before.get("contactInfo.email"))),
+                eq("adt-feed"));
+    }
+
+    @Test
+    void countsUpdatesForDeletedPatientsAsMissing() {
+        Patient stored = record("ADT-1", "ana@example.com", null).patient();
+        stored.setId("p-1");
+        when(upsertRepository.claimKeys(anyList())).thenReturn(List.of(
+                new PatientUpsertRepository.ClaimedKey("ADT-1", "p-1", false),
+                // Mapped to a patient that was deleted through the API
+                new PatientUpsertRepository.ClaimedKey("ADT-2", "p-2", false)));
+        when(upsertRepository.updatePatients(anyList())).thenReturn(List.of(stored));
+
+        IngestionResult result = service.upsertPatients(List.of(
+                record("ADT-1", "ana@example.com", null),
+                record("ADT-2", "rosa@example.com", null)));
+
+        assertThat(result.updated()).isEqualTo(1);
+        assertThat(result.missing()).isEqualTo(1);
+        verify(historyService, never()).recordChanges(argThat(patient -> patient.getId().equals("p-2")),
+                anyMap(), anyString());
+    }
+
+    private static PatientIngestionRecord record(String externalId, String email, String ssn) {
+        Patient patient = new Patient();
+        patient.setDemographics(new Demographics("Ana", "Lopez", null, LocalDate.of(1980, 5, 1), Gender.FEMALE,
+                ssn, null, null));
+        ContactInfo contactInfo = new ContactInfo();
+        contactInfo.setEmail(email);
+        patient.setContactInfo(contactInfo);
+        return new PatientIngestionRecord(externalId, 1, patient);
+    }
+
+    private static String key(int seed) {
+        byte[] key = new byte[32];
+        key[0] = (byte) seed;
+        return Base64.getEncoder().encodeToString(key);
+    }
+
+}
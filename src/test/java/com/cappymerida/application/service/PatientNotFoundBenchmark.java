@@ -0,0 +1,58 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.exceptions.PatientNotFoundException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Per-miss cost of the not-found path: the old IllegalArgumentException (stack
+ * captured at the depth of a real request) against the stackless domain
+ * exception. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class PatientNotFoundBenchmark {
+
+    // Roughly the frame count between the servlet container and PatientService
+    private static final int REQUEST_STACK_DEPTH = 150;
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+
+    private static volatile Object sink;
+
+    @Test
+    void stacklessNotFoundIsCheaperThanIllegalArgument() {
+        double before = measure(() -> new IllegalArgumentException("Patient not found"));
+        double after = measure(() -> new PatientNotFoundException("missing-id"));
+
+        System.out.printf("not-found miss: IllegalArgumentException %.0f ns/op, PatientNotFoundException %.0f ns/op (%.1fx)%n",
+                before, after, before / after);
+        assertThat(after).isLessThan(before);
+    }
+
+    private static double measure(Supplier<RuntimeException> exception) {
+        for (int i = 0; i < WARMUP; i++) {
+            sink = throwAndCatch(REQUEST_STACK_DEPTH, exception);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = throwAndCatch(REQUEST_STACK_DEPTH, exception);
+        }
+        return (System.nanoTime() - start) / (double) ITERATIONS;
+    }
+
+    private static Object throwAndCatch(int depth, Supplier<RuntimeException> exception) {
+        if (depth > 0) {
+            return throwAndCatch(depth - 1, exception);
+        }
+        try {
+            throw exception.get();
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+}
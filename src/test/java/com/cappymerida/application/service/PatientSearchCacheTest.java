@@ -0,0 +1,137 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.enums.Gender;
+import com.cappymerida.domain.enums.Status;
+import com.cappymerida.domain.model.ContactInfo;
+import com.cappymerida.domain.model.Demographics;
+import com.cappymerida.domain.model.Patient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PatientSearchCacheTest {
+
+    private static final Pageable BY_LAST_NAME = PageRequest.of(0, 20, Sort.by("demographics.lastName"));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PatientSearchCache cache = new PatientSearchCache(meterRegistry, true, Duration.ofMinutes(1), 100);
+    private final AtomicInteger queries = new AtomicInteger();
+
+    @Test
+    void servesRepeatedSearchFromCachedIds() {
+        Patient ana = patient("p-1", "Ana", "Lopez", Status.ACTIVE);
+
+        search(Status.ACTIVE, "LOP", ana);
+        Page<Patient> cached = search(Status.ACTIVE, "lop", ana);
+
+        assertThat(queries).hasValue(1);
+        assertThat(cached.getContent()).extracting(Patient::getId).containsExactly("p-1");
+        assertThat(cached.getTotalElements()).isEqualTo(1);
+        assertThat(meterRegistry.get("patients.search.cache.hit.ratio").tag("shape", "ACTIVE/term/lastName")
+                .gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    void dropsOnlyPagesTheChangeAffects() {
+        Patient ana = patient("p-1", "Ana", "Lopez", Status.ACTIVE);
+        search(Status.ACTIVE, "lop", ana);
+        search(Status.ACTIVE, "pech", ana);
+        search(Status.INACTIVE, null, ana);
+        queries.set(0);
+
+        // A phone change moves nobody in or out of a result
+        cache.onPatientChanged(PatientSearchCache.SearchView.of(ana), PatientSearchCache.SearchView.of(ana));
+        search(Status.ACTIVE, "lop", ana);
+        assertThat(queries).hasValue(0);
+
+        Patient deactivated = patient("p-1", "Ana", "Lopez", Status.INACTIVE);
+        cache.onPatientChanged(PatientSearchCache.SearchView.of(ana), PatientSearchCache.SearchView.of(deactivated));
+
+        search(Status.ACTIVE, "lop", ana);
+        search(Status.INACTIVE, null, ana);
+        search(Status.ACTIVE, "pech", ana);
+        assertThat(queries).hasValue(2);
+    }
+
+    @Test
+    void dropsPagesWhoseOrderChanges() {
+        Patient ana = patient("p-1", "Ana", "Lopez", Status.ACTIVE);
+        search(Status.ACTIVE, "ana", ana);
+        queries.set(0);
+
+        Patient renamed = patient("p-1", "Ana", "Abadia", Status.ACTIVE);
+        cache.onPatientChanged(PatientSearchCache.SearchView.of(ana), PatientSearchCache.SearchView.of(renamed));
+
+        search(Status.ACTIVE, "ana", renamed);
+        assertThat(queries).hasValue(1);
+    }
+
+    @Test
+    void sharesOneQueryAcrossConcurrentMisses() throws Exception {
+        Patient ana = patient("p-1", "Ana", "Lopez", Status.ACTIVE);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<Page<Patient>> slowQuery = () -> {
+            queries.incrementAndGet();
+            await(release);
+            return new PageImpl<>(List.of(ana), BY_LAST_NAME, 1);
+        };
+
+        List<CompletableFuture<Page<Patient>>> callers = IntStream.range(0, 8)
+                .mapToObj(i -> CompletableFuture.supplyAsync(
+                        () -> cache.search(Status.ACTIVE, "lop", BY_LAST_NAME, slowQuery, ids -> List.of(ana))))
+                .toList();
+        Thread.sleep(200);
+        release.countDown();
+
+        for (CompletableFuture<Page<Patient>> caller : callers) {
+            assertThat(caller.get(5, TimeUnit.SECONDS).getContent()).containsExactly(ana);
+        }
+        assertThat(queries).hasValue(1);
+    }
+
+    private Page<Patient> search(Status status, String term, Patient... results) {
+        return cache.search(status, term, BY_LAST_NAME,
+                () -> {
+                    queries.incrementAndGet();
+                    return new PageImpl<>(List.of(results), BY_LAST_NAME, results.length);
+                },
+                ids -> List.of(results));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Patient patient(String id, String firstName, String lastName, Status status) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setDemographics(new Demographics(firstName, lastName, null, LocalDate.of(1980, 5, 1), Gender.FEMALE,
+                null, null, null));
+        patient.setContactInfo(new ContactInfo());
+        patient.setStatus(status);
+        patient.setCreatedAt(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        return patient;
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.enums.Gender;
+import com.cappymerida.domain.enums.Status;
+import com.cappymerida.domain.exceptions.PatientVersionConflictException;
+import com.cappymerida.domain.model.ContactInfo;
+import com.cappymerida.domain.model.Demographics;
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.repository.PatientRepository;
+import com.cappymerida.infrastructure.crypto.SsnCipher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PatientServiceTest {
+
+    private final PatientRepository patientRepository = mock(PatientRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final PatientService service = new PatientService(
+            patientRepository,
+            mock(PatientBatchLoader.class),
+            mock(PatientWarmupSnapshot.class),
+            mock(PatientSearchCache.class),
+            mock(PatientHistoryService.class),
+            new PatientUpdateRetry(patientRepository, transactionManager, new SimpleMeterRegistry(),
+                    4, Duration.ofMillis(1), Duration.ofMillis(2)),
+            mock(PatientSsnRotationService.class),
+            new SsnCipher(true, "k1", "k1:" + key(1), key(2)));
+
+    @BeforeEach
+    void transactions() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+    }
+
+    @Test
+    void reappliesAnUpdateWhenTheWinningChangeOnlyTouchedStatus() {
+        // The first save loses to a concurrent deactivation
+        when(patientRepository.findById("p-1")).thenReturn(
+                Optional.of(stored(1L, Status.ACTIVE, "555-0100")),
+                Optional.of(stored(2L, Status.INACTIVE, "555-0100")));
+        when(patientRepository.save(any(Patient.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Patient.class, "p-1"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        Patient saved = service.updatePatient("p-1", edit("555-0199"));
+
+        assertThat(saved.getContactInfo().getPhoneNumber()).isEqualTo("555-0199");
+        assertThat(saved.getStatus()).isEqualTo(Status.INACTIVE);
+        verify(patientRepository, times(2)).save(any(Patient.class));
+    }
+
+    @Test
+    void refusesToOverwriteAConcurrentEditOfTheSameFields() {
+        // The first save loses to another user's edit of the contact details
+        when(patientRepository.findById("p-1")).thenReturn(
+                Optional.of(stored(1L, Status.ACTIVE, "555-0100")),
+                Optional.of(stored(2L, Status.ACTIVE, "555-0150")));
+        when(patientRepository.save(any(Patient.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Patient.class, "p-1"));
+
+        assertThatThrownBy(() -> service.updatePatient("p-1", edit("555-0199")))
+                .isInstanceOfSatisfying(PatientVersionConflictException.class,
+                        conflict -> assertThat(conflict.getCurrentVersion()).isEqualTo(2L));
+        verify(patientRepository, times(1)).save(any(Patient.class));
+    }
+
+    private static Patient stored(Long version, Status status, String phoneNumber) {
+        Patient patient = edit(phoneNumber);
+        patient.setId("p-1");
+        patient.setVersion(version);
+        patient.setStatus(status);
+        return patient;
+    }
+
+    private static Patient edit(String phoneNumber) {
+        Patient patient = new Patient();
+        patient.setDemographics(new Demographics("Ana", "Lopez", null, LocalDate.of(1980, 5, 1), Gender.FEMALE,
+                null, null, null));
+        ContactInfo contactInfo = new ContactInfo();
+        contactInfo.setPhoneNumber(phoneNumber);
+        patient.setContactInfo(contactInfo);
+        return patient;
+    }
+
+    private static String key(int seed) {
+        byte[] key = new byte[32];
+        key[0] = (byte) seed;
+        return Base64.getEncoder().encodeToString(key);
+    }
+
+}
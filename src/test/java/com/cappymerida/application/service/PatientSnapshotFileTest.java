@@ -0,0 +1,123 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.enums.Gender;
+import com.cappymerida.domain.enums.MaritalStatus;
+import com.cappymerida.domain.enums.Relationship;
+import com.cappymerida.domain.enums.Status;
+import com.cappymerida.domain.model.ContactInfo;
+import com.cappymerida.domain.model.Demographics;
+import com.cappymerida.domain.model.EmergencyContact;
+import com.cappymerida.domain.model.Patient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PatientSnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsPatientsThroughMappedFile() throws IOException {
+        Path path = directory.resolve("warmup.snapshot");
+        Patient full = patient("p-1", 3L);
+        Patient sparse = new Patient();
+        sparse.setId("p-2");
+        sparse.setDemographics(new Demographics("Luis", "Pech", null, LocalDate.of(1990, 2, 3), Gender.MALE,
+                null, null, null));
+        sparse.setStatus(Status.INACTIVE);
+        sparse.setArchived(true);
+
+        Instant createdAt = Instant.parse("2026-01-05T10:15:30Z");
+        long bytes = PatientSnapshotFile.write(path, List.of(full, sparse), createdAt, UnaryOperator.identity());
+        PatientSnapshotFile file = PatientSnapshotFile.open(path, UnaryOperator.identity());
+
+        assertThat(file.sizeBytes()).isEqualTo(bytes).isEqualTo(Files.size(path));
+        assertThat(file.createdAt()).isEqualTo(createdAt);
+        assertThat(file.ids()).containsExactlyInAnyOrder("p-1", "p-2");
+        assertThat(file.version("p-1")).isEqualTo(3L);
+        assertThat(file.version("p-2")).isNull();
+
+        assertThat(file.read("p-1")).isEqualTo(full);
+        assertThat(file.read("p-2")).isEqualTo(sparse);
+        assertThat(file.read("p-1")).isNotSameAs(file.read("p-1"));
+        assertThat(file.read("missing")).isNull();
+
+        assertThat(file.remove("p-1")).isTrue();
+        assertThat(file.read("p-1")).isNull();
+        assertThat(file.initialEntries()).isEqualTo(2);
+    }
+
+    @Test
+    void writesSsnOnlyInSealedForm() throws IOException {
+        Path path = directory.resolve("warmup.snapshot");
+        PatientSnapshotFile.write(path, List.of(patient("p-1", 1L)), Instant.now(),
+                ssn -> new StringBuilder(ssn).reverse().toString());
+
+        assertThat(Files.readString(path, StandardCharsets.ISO_8859_1)).doesNotContain("123-45-6789");
+        PatientSnapshotFile file = PatientSnapshotFile.open(path, ssn -> new StringBuilder(ssn).reverse().toString());
+        assertThat(file.read("p-1").getDemographics().getSocialSecurityNumber()).isEqualTo("123-45-6789");
+    }
+
+    @Test
+    void rejectsCorruptedFile() throws IOException {
+        Path path = directory.resolve("warmup.snapshot");
+        PatientSnapshotFile.write(path, List.of(patient("p-1", 1L)), Instant.now(), UnaryOperator.identity());
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), Files.size(path) - 1);
+        }
+
+        assertThatThrownBy(() -> PatientSnapshotFile.open(path, UnaryOperator.identity()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("checksum");
+    }
+
+    @Test
+    void rejectsCorruptedHeader() throws IOException {
+        Path path = directory.resolve("warmup.snapshot");
+        PatientSnapshotFile.write(path, List.of(patient("p-1", 1L)), Instant.now(), UnaryOperator.identity());
+
+        // A flipped bit in createdAt would otherwise pass the age check with a wrong time
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer createdAt = ByteBuffer.allocate(1);
+            channel.read(createdAt, 15);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) (createdAt.get(0) ^ 1)}), 15);
+        }
+
+        assertThatThrownBy(() -> PatientSnapshotFile.open(path, UnaryOperator.identity()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("checksum");
+    }
+
+    private static Patient patient(String id, Long version) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setVersion(version);
+        patient.setDemographics(new Demographics("Ana", "López", "María", LocalDate.of(1980, 5, 1), Gender.FEMALE,
+                "123-45-6789", "es", MaritalStatus.MARRIED));
+        patient.setContactInfo(new ContactInfo("ana@example.com", "555-0100", null, "Calle 60", "Mérida",
+                "Yucatán", "97000", "MX"));
+        patient.setEmergencyContact(new EmergencyContact("Jorge", "555-0101", null, Relationship.SPOUSE));
+        patient.setStatus(Status.ACTIVE);
+        patient.setCreatedAt(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 123_456_000));
+        patient.setUpdatedAt(LocalDateTime.of(2025, 6, 7, 8, 9, 10));
+        return patient;
+    }
+
+}
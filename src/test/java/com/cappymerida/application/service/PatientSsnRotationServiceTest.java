@@ -0,0 +1,76 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.exceptions.SsnCheckUnavailableException;
+import com.cappymerida.domain.repository.PatientSsnRepository;
+import com.cappymerida.infrastructure.crypto.SsnCipher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PatientSsnRotationServiceTest {
+
+    private final PatientSsnRepository ssnRepository = mock(PatientSsnRepository.class);
+    private final SsnCipher ssnCipher = new SsnCipher(true, "k1", "k1:" + key(1), key(2));
+    private final PatientSsnRotationService service =
+            new PatientSsnRotationService(ssnRepository, ssnCipher, new SimpleMeterRegistry(), 500);
+
+    @Test
+    void failsSsnChecksClosedUntilTheBackfillIndexedEveryRow() {
+        when(ssnRepository.existsWithoutBlindIndex()).thenReturn(true, true, false);
+        when(ssnRepository.runExclusively(any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return true;
+        });
+        when(ssnRepository.findStaleAfter(anyString(), anyString(), anyInt())).thenReturn(List.of(
+                new PatientSsnRepository.StoredSsn("p-1", "123-45-6789", null)));
+
+        service.afterPropertiesSet();
+        assertThatThrownBy(service::requireCompleteBlindIndex).isInstanceOf(SsnCheckUnavailableException.class);
+
+        service.backfillBlindIndex();
+
+        verify(ssnRepository).rewrite(anyList());
+        assertThatCode(service::requireCompleteBlindIndex).doesNotThrowAnyException();
+    }
+
+    @Test
+    void staysClosedWhileAnotherInstanceRunsTheBackfill() {
+        when(ssnRepository.existsWithoutBlindIndex()).thenReturn(true);
+        when(ssnRepository.runExclusively(any())).thenReturn(false);
+
+        service.afterPropertiesSet();
+        service.backfillBlindIndex();
+
+        verify(ssnRepository, never()).findStaleAfter(anyString(), anyString(), anyInt());
+        assertThatThrownBy(service::requireCompleteBlindIndex).isInstanceOf(SsnCheckUnavailableException.class);
+    }
+
+    @Test
+    void failsClosedWhenTheStartupCheckCannotRun() {
+        when(ssnRepository.existsWithoutBlindIndex()).thenThrow(new IllegalStateException("database unavailable"));
+
+        service.afterPropertiesSet();
+
+        assertThatThrownBy(service::requireCompleteBlindIndex).isInstanceOf(SsnCheckUnavailableException.class);
+    }
+
+    private static String key(int seed) {
+        byte[] key = new byte[32];
+        key[0] = (byte) seed;
+        return Base64.getEncoder().encodeToString(key);
+    }
+
+}
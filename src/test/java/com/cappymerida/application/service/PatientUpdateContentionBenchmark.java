@@ -0,0 +1,176 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.enums.Gender;
+import com.cappymerida.domain.exceptions.PatientVersionConflictException;
+import com.cappymerida.domain.model.ContactInfo;
+import com.cappymerida.domain.model.Demographics;
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.repository.PatientRepository;
+import com.cappymerida.infrastructure.crypto.SsnCipher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hammers one patient from many threads: most toggle its status, a few replace its
+ * contact details. Status toggles move the row between partitions, so writers also
+ * hit serialization failures, not just optimistic lock conflicts. Reports throughput,
+ * how often a write lost a race and was retried, and how many callers would have seen
+ * a 409; any other failure (a race that escaped the retry as a 500) fails the run.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({PatientService.class, PatientUpdateRetry.class, PatientBatchLoader.class, PatientWarmupSnapshot.class,
+        PatientSearchCache.class, SsnCipher.class, PatientUpdateContentionBenchmark.Config.class})
+@TestPropertySource(properties = "patients.warmup.enabled=false")
+class PatientUpdateContentionBenchmark {
+
+    private static final int STATUS_THREADS = 12;
+    private static final int UPDATE_THREADS = 4;
+    private static final int OPERATIONS_PER_THREAD = 200;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoBean
+    private PatientHistoryService patientHistoryService;
+
+    @Test
+    void hotRecordUnderContention() throws Exception {
+        String id = patientRepository.save(patient("555-0000")).getId();
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        Map<String, AtomicInteger> unexpected = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(STATUS_THREADS + UPDATE_THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < STATUS_THREADS + UPDATE_THREADS; t++) {
+            boolean updater = t < UPDATE_THREADS;
+            int thread = t;
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    try {
+                        if (updater) {
+                            patientService.updatePatient(id, patient(String.format("555-%02d%02d", thread, i % 100)));
+                        } else if (i % 2 == 0) {
+                            patientService.deactivatePatient(id);
+                        } else {
+                            patientService.activatePatient(id);
+                        }
+                        succeeded.incrementAndGet();
+                    } catch (PatientVersionConflictException e) {
+                        rejected.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        unexpected.computeIfAbsent(e.getClass().getName(), key -> new AtomicInteger()).incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(5, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        executor.shutdown();
+
+        int failed = unexpected.values().stream().mapToInt(AtomicInteger::get).sum();
+        int total = succeeded.get() + rejected.get() + failed;
+        double retried = conflicts("retried");
+        System.out.printf("Hot record: %d threads, %d ops in %.1f s (%.0f ops/s); %.0f retries (%.1f%% of ops), "
+                        + "%d resolved by retry, 409 for %d ops (%.1f%%: %.0f overlapping, %.0f exhausted)%n",
+                STATUS_THREADS + UPDATE_THREADS, total, seconds, total / seconds,
+                retried, 100 * retried / total, (long) conflicts("resolved"),
+                rejected.get(), 100.0 * rejected.get() / total, conflicts("overlapping"), conflicts("exhausted"));
+        if (!unexpected.isEmpty()) {
+            System.out.printf("Unexpected failures: %s%n", unexpected);
+        }
+
+        assertThat(total).isEqualTo((STATUS_THREADS + UPDATE_THREADS) * OPERATIONS_PER_THREAD);
+        assertThat(unexpected).as("failures other than 409").isEmpty();
+        assertThat(succeeded.get()).isPositive();
+        assertThat(patientRepository.findById(id)).isPresent();
+    }
+
+    private double conflicts(String outcome) {
+        return meterRegistry.find("patients.update.conflicts").tag("outcome", outcome).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private static Patient patient(String phoneNumber) {
+        Patient patient = new Patient();
+        patient.setDemographics(new Demographics("Hot", "Record", null, LocalDate.of(1975, 3, 14), Gender.OTHER,
+                null, null, null));
+        ContactInfo contactInfo = new ContactInfo();
+        contactInfo.setPhoneNumber(phoneNumber);
+        patient.setContactInfo(contactInfo);
+        return patient;
+    }
+
+}
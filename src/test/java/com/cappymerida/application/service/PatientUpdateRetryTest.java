@@ -0,0 +1,97 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.exceptions.PatientConflictException;
+import com.cappymerida.domain.exceptions.PatientVersionConflictException;
+import com.cappymerida.domain.model.PatientVersion;
+import com.cappymerida.domain.repository.PatientRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PatientUpdateRetryTest {
+
+    private final PatientRepository patientRepository = mock(PatientRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PatientUpdateRetry retry = new PatientUpdateRetry(patientRepository, transactionManager,
+            meterRegistry, 3, Duration.ofMillis(1), Duration.ofMillis(2));
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @BeforeEach
+    void transactions() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+    }
+
+    @Test
+    void retriesConcurrencyFailuresUntilAnAttemptSucceeds() {
+        String result = retry.execute("update", "p-1", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("Patient", "p-1");
+            }
+            return "saved";
+        });
+
+        assertThat(result).isEqualTo("saved");
+        assertThat(attempts).hasValue(3);
+        assertThat(conflicts("retried")).isEqualTo(2);
+        assertThat(conflicts("resolved")).isEqualTo(1);
+    }
+
+    @Test
+    void answersWithTheCurrentVersionOnceAttemptsRunOut() {
+        when(patientRepository.findVersionsByIdIn(List.of("p-1"))).thenReturn(List.of(new PatientVersion("p-1", 7L)));
+
+        // Serialization failure from a concurrent partition move
+        assertThatThrownBy(() -> retry.execute("update", "p-1", () -> {
+            attempts.incrementAndGet();
+            throw new CannotAcquireLockException("could not serialize access");
+        }))
+                .isInstanceOfSatisfying(PatientVersionConflictException.class, conflict -> {
+                    assertThat(conflict.getPatientId()).isEqualTo("p-1");
+                    assertThat(conflict.getCurrentVersion()).isEqualTo(7L);
+                });
+        assertThat(attempts).hasValue(3);
+        assertThat(conflicts("exhausted")).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotRetryOverlappingEdits() {
+        assertThatThrownBy(() -> retry.execute("update", "p-1", () -> {
+            attempts.incrementAndGet();
+            throw new PatientVersionConflictException("p-1", 2L);
+        })).isInstanceOf(PatientVersionConflictException.class);
+
+        assertThat(attempts).hasValue(1);
+        assertThat(conflicts("overlapping")).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotRetryOtherConflicts() {
+        assertThatThrownBy(() -> retry.execute("update", "p-1", () -> {
+            attempts.incrementAndGet();
+            throw new PatientConflictException("Email already exists for another patient");
+        })).isExactlyInstanceOf(PatientConflictException.class);
+
+        assertThat(attempts).hasValue(1);
+    }
+
+    private double conflicts(String outcome) {
+        return meterRegistry.get("patients.update.conflicts").tag("outcome", outcome).counter().count();
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.cappymerida.application.service;
+
+import com.cappymerida.domain.enums.Gender;
+import com.cappymerida.domain.enums.Status;
+import com.cappymerida.domain.model.Demographics;
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.model.PatientVersion;
+import com.cappymerida.domain.repository.PatientRepository;
+import com.cappymerida.infrastructure.crypto.SsnCipher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PatientWarmupSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private final PatientRepository patientRepository = mock(PatientRepository.class);
+    private final SsnCipher ssnCipher = new SsnCipher(true, "k1", "k1:" + key(1), key(2));
+
+    @Test
+    void servesNoEntryOfALoadedSnapshotBeforeCheckingItsVersion() throws IOException {
+        Path path = writeSnapshot(patient("p-1", 1L), patient("p-2", 1L), patient("p-3", 1L));
+        // p-2 was edited and p-3 deleted through another instance while the file sat on disk
+        when(patientRepository.findVersionsByIdIn(anyCollection())).thenReturn(List.of(
+                new PatientVersion("p-1", 1L),
+                new PatientVersion("p-2", 2L)));
+
+        PatientWarmupSnapshot warmup = warmup(path);
+        warmup.afterPropertiesSet();
+
+        assertThat(warmup.find("p-1")).get().extracting(Patient::getVersion).isEqualTo(1L);
+        assertThat(warmup.find("p-2")).isEmpty();
+        assertThat(warmup.find("p-3")).isEmpty();
+    }
+
+    @Test
+    void startsColdWhenTheSnapshotCannotBeVerified() throws IOException {
+        Path path = writeSnapshot(patient("p-1", 1L));
+        when(patientRepository.findVersionsByIdIn(anyCollection()))
+                .thenThrow(new DataAccessResourceFailureException("database unavailable"));
+
+        PatientWarmupSnapshot warmup = warmup(path);
+        warmup.afterPropertiesSet();
+
+        assertThat(warmup.find("p-1")).isEmpty();
+    }
+
+    @Test
+    void dropsEntriesChangedElsewhereOnRevalidation() throws IOException {
+        Path path = writeSnapshot(patient("p-1", 1L));
+        when(patientRepository.findVersionsByIdIn(anyCollection()))
+                .thenReturn(List.of(new PatientVersion("p-1", 1L)))
+                .thenReturn(List.of(new PatientVersion("p-1", 2L)));
+
+        PatientWarmupSnapshot warmup = warmup(path);
+        warmup.afterPropertiesSet();
+        assertThat(warmup.find("p-1")).isPresent();
+
+        warmup.revalidate();
+
+        assertThat(warmup.find("p-1")).isEmpty();
+    }
+
+    private PatientWarmupSnapshot warmup(Path path) {
+        return new PatientWarmupSnapshot(patientRepository, ssnCipher, new SimpleMeterRegistry(), true,
+                path.toString(), 100, 1_000, Duration.ofHours(6), 500);
+    }
+
+    private Path writeSnapshot(Patient... patients) throws IOException {
+        Path path = directory.resolve("warmup.snapshot");
+        PatientSnapshotFile.write(path, List.of(patients), Instant.now(), ssnCipher::encrypt);
+        return path;
+    }
+
+    private static Patient patient(String id, Long version) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setVersion(version);
+        patient.setDemographics(new Demographics("Ana", "Lopez", null, LocalDate.of(1980, 5, 1), Gender.FEMALE,
+                "123-45-6789", null, null));
+        patient.setStatus(Status.ACTIVE);
+        return patient;
+    }
+
+    private static String key(int seed) {
+        byte[] key = new byte[32];
+        key[0] = (byte) seed;
+        return Base64.getEncoder().encodeToString(key);
+    }
+
+}
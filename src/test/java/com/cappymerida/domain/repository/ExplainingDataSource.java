@@ -0,0 +1,106 @@
+package com.cappymerida.domain.repository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import javax.sql.DataSource;
+
+/**
+ * Wraps a DataSource so that every SELECT or UPDATE executed through a PreparedStatement
+ * is first run as {@code EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON)} with the same bind
+ * values. Captures the SQL Hibernate actually generates, not a hand-written copy.
+ * An explained UPDATE is rolled back to a savepoint, so only the real statement writes.
+ */
+final class ExplainingDataSource {
+
+    record CapturedPlan(String sql, String planJson) {}
+
+    private ExplainingDataSource() {
+    }
+
+    static DataSource wrap(DataSource target, List<CapturedPlan> sink) {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection connection ? wrap(connection, sink) : result;
+        });
+    }
+
+    private static Connection wrap(Connection connection, List<CapturedPlan> sink) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (method.getName().equals("prepareStatement")
+                    && args != null && args[0] instanceof String sql
+                    && isExplained(sql)) {
+                return wrap((PreparedStatement) result, connection, sql, sink);
+            }
+            return result;
+        });
+    }
+
+    private static PreparedStatement wrap(PreparedStatement statement, Connection connection,
+                                          String sql, List<CapturedPlan> sink) {
+        List<Object[]> bindings = new ArrayList<>();
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            if (method.getName().startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                bindings.add(new Object[]{method, args});
+            } else if (method.getName().equals("clearParameters")) {
+                bindings.clear();
+            } else if ((method.getName().equals("executeQuery") || method.getName().equals("executeUpdate"))
+                    && (args == null || args.length == 0)) {
+                sink.add(new CapturedPlan(sql, explain(connection, sql, bindings)));
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private static boolean isExplained(String sql) {
+        String statement = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return statement.startsWith("select") || statement.startsWith("update");
+    }
+
+    private static String explain(Connection connection, String sql, List<Object[]> bindings) throws Exception {
+        if (connection.getAutoCommit() || !sql.stripLeading().toLowerCase(Locale.ROOT).startsWith("update")) {
+            return runExplain(connection, sql, bindings);
+        }
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            return runExplain(connection, sql, bindings);
+        } finally {
+            connection.rollback(savepoint);
+        }
+    }
+
+    private static String runExplain(Connection connection, String sql, List<Object[]> bindings) throws Exception {
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + sql)) {
+            for (Object[] binding : bindings) {
+                ((Method) binding[0]).invoke(explain, (Object[]) binding[1]);
+            }
+            try (ResultSet rs = explain.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(ExplainingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+}
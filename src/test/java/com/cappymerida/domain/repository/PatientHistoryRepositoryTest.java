@@ -0,0 +1,90 @@
+package com.cappymerida.domain.repository;
+
+import com.cappymerida.domain.model.PatientHistoryEntry;
+import com.cappymerida.web.dto.PatientHistoryResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The /history endpoint's keyset pagination, walked the way the controller does it:
+ * fetch one row more than the page size and hand out the last id as the cursor.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import(PatientHistoryRepository.class)
+class PatientHistoryRepositoryTest {
+
+    private static final int PAGE_SIZE = 4;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private PatientHistoryRepository historyRepository;
+
+    @Test
+    void pagesNewestFirstWithoutGapsOrOverlap() {
+        historyRepository.insertAll(entries("p-1", 10));
+        historyRepository.insertAll(entries("p-2", 3));
+
+        List<PatientHistoryEntry> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        Long cursor = null;
+        do {
+            PatientHistoryResponse page = PatientHistoryResponse.of(
+                    historyRepository.findByPatientId("p-1", cursor, PAGE_SIZE + 1), PAGE_SIZE);
+            seen.addAll(page.getEntries());
+            pageSizes.add(page.getEntries().size());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(pageSizes).containsExactly(4, 4, 2);
+        assertThat(seen).extracting(PatientHistoryEntry::patientId).containsOnly("p-1");
+        assertThat(seen).extracting(PatientHistoryEntry::newValue)
+                .containsExactlyElementsOf(IntStream.iterate(9, i -> i - 1).limit(10).mapToObj(i -> "v" + i).toList());
+        assertThat(seen).extracting(PatientHistoryEntry::id).isSortedAccordingTo((a, b) -> Long.compare(b, a));
+    }
+
+    @Test
+    void exactMultipleOfPageSizeEndsWithoutEmptyPage() {
+        historyRepository.insertAll(entries("p-3", PAGE_SIZE));
+
+        PatientHistoryResponse page = PatientHistoryResponse.of(
+                historyRepository.findByPatientId("p-3", null, PAGE_SIZE + 1), PAGE_SIZE);
+
+        assertThat(page.getEntries()).hasSize(PAGE_SIZE);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    private static List<PatientHistoryEntry> entries(String patientId, int count) {
+        LocalDateTime changedAt = LocalDateTime.of(2026, 3, 1, 9, 30);
+        return IntStream.range(0, count)
+                .mapToObj(i -> new PatientHistoryEntry(null, patientId, (long) i, "contactInfo.city",
+                        null, "v" + i, "nurse", changedAt.plusMinutes(i)))
+                .toList();
+    }
+
+}
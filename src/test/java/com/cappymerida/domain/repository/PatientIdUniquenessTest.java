@@ -0,0 +1,77 @@
+package com.cappymerida.domain.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PatientIdUniquenessTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void rejectsAnIdThatAlreadyExistsInAnotherPartition() {
+        String id = UUID.randomUUID().toString();
+        insert(id, "ACTIVE");
+
+        assertThatThrownBy(() -> insert(id, "INACTIVE"))
+                .isInstanceOf(DuplicateKeyException.class)
+                .hasMessageContaining("patient_ids_pkey");
+        assertThat(count("patients", id)).isEqualTo(1);
+    }
+
+    @Test
+    void keepsTheIdClaimedWhenARowMovesBetweenPartitions() {
+        String id = UUID.randomUUID().toString();
+        insert(id, "ACTIVE");
+
+        jdbcTemplate.update("UPDATE patients SET status = 'INACTIVE' WHERE id = ?", id);
+        assertThat(count("patient_ids", id)).isEqualTo(1);
+        assertThatThrownBy(() -> insert(id, "ACTIVE")).isInstanceOf(DuplicateKeyException.class);
+
+        jdbcTemplate.update("DELETE FROM patients WHERE id = ?", id);
+        assertThat(count("patient_ids", id)).isZero();
+        insert(id, "ACTIVE");
+        assertThat(count("patient_ids", id)).isEqualTo(1);
+    }
+
+    private void insert(String id, String status) {
+        jdbcTemplate.update("INSERT INTO patients (id, first_name, last_name, date_of_birth, gender, status, " +
+                "created_at, updated_at, version) VALUES (?, 'Ana', 'Lopez', DATE '1980-05-01', 'FEMALE', ?, " +
+                "now(), now(), 0)", id, status);
+    }
+
+    private int count(String table, String id) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table + " WHERE id = ?", Integer.class, id);
+    }
+
+}
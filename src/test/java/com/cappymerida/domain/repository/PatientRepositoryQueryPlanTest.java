@@ -0,0 +1,255 @@
+package com.cappymerida.domain.repository;
+
+import com.cappymerida.domain.enums.PatientSortField;
+import com.cappymerida.domain.enums.Status;
+import com.cappymerida.infrastructure.crypto.SsnCipher;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Runs every {@link PatientRepository} query, and search with every allowed sort
+ * field, against a seeded Postgres and asserts properties of the captured
+ * {@code EXPLAIN (ANALYZE, BUFFERS)} plans:
+ * <ul>
+ *     <li>no sequential scan over a patients partition reads more than {@link #MAX_SEQ_SCAN_ROWS}
+ *     rows (count queries behind {@code Page} results are exempt, they are partition-pruned instead)</li>
+ *     <li>shared buffers touched stay under {@link #MAX_SHARED_BLOCKS}</li>
+ *     <li>status-filtered queries only touch their partitions</li>
+ *     <li>index-only scans where the query can be answered from an index</li>
+ * </ul>
+ * Failures print the offending plan. Seed size can be raised with {@code -Dplan.rows}.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({PatientRepositoryQueryPlanTest.ExplainConfig.class, SsnCipher.class})
+class PatientRepositoryQueryPlanTest {
+
+    private static final int SEED_ROWS = Integer.getInteger("plan.rows", 200_000);
+    private static final long MAX_SEQ_SCAN_ROWS = 1_000;
+    private static final long MAX_SHARED_BLOCKS = 2_000;
+
+    private static final Set<String> ACTIVE_PARTITIONS = Set.of("patients_active");
+    private static final Set<String> INACTIVE_PARTITIONS = Set.of("patients_inactive_current", "patients_archive");
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final List<ExplainingDataSource.CapturedPlan> PLANS =
+            Collections.synchronizedList(new ArrayList<>());
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static boolean seeded;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @BeforeEach
+    void seed() {
+        if (seeded) {
+            return;
+        }
+        jdbcTemplate.update("""
+                INSERT INTO patients (id, first_name, last_name, date_of_birth, gender, social_security_number,
+                                      ssn_blind_index, marital_status, contact_email, address_city, status,
+                                      archived, created_at, updated_at, version)
+                SELECT md5(i::text)::uuid::text,
+                       'First' || (i % 5000),
+                       'Last' || (i % 20000),
+                       DATE '1930-01-01' + (i % 30000),
+                       (ARRAY['MALE', 'FEMALE', 'OTHER'])[1 + i % 3],
+                       lpad(i::text, 9, '0'),
+                       md5('ssn' || i),
+                       'SINGLE',
+                       'patient' || i || '@example.com',
+                       'City' || (i % 300),
+                       CASE WHEN i % 10 < 4 THEN 'ACTIVE' WHEN i % 10 < 8 THEN 'INACTIVE' ELSE 'DECEASED' END,
+                       i % 10 = 9,
+                       now() - make_interval(mins => i),
+                       now() - make_interval(mins => i),
+                       0
+                FROM generate_series(1, ?) AS i
+                """, SEED_ROWS);
+        jdbcTemplate.execute("VACUUM ANALYZE patients");
+        seeded = true;
+    }
+
+    @TestFactory
+    Stream<DynamicTest> repositoryQueries() {
+        String id = jdbcTemplate.queryForObject(
+                "SELECT id FROM patients WHERE contact_email = 'patient42@example.com'", String.class);
+        String ssnBlindIndex = jdbcTemplate.queryForObject("SELECT md5('ssn4242')", String.class);
+        PageRequest page = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt"));
+
+        return Stream.of(
+                check("findById", () -> patientRepository.findById(id), null, false),
+                check("existsById", () -> patientRepository.existsById(id), null, true),
+                check("findByContactInfoEmail",
+                        () -> patientRepository.findByContactInfoEmail("patient4242@example.com"), null, false),
+                check("existsByContactInfoEmail",
+                        () -> patientRepository.existsByContactInfoEmail("patient4242@example.com"), null, false),
+                check("findBySsnBlindIndex",
+                        () -> patientRepository.findBySsnBlindIndex(ssnBlindIndex), null, false),
+                check("existsBySsnBlindIndex",
+                        () -> patientRepository.existsBySsnBlindIndex(ssnBlindIndex), null, false),
+                check("findByNameContaining",
+                        () -> patientRepository.findByNameContaining("Last1234", page), null, false),
+                check("findByStatus",
+                        () -> patientRepository.findByStatus(Status.ACTIVE, page), ACTIVE_PARTITIONS, false),
+                check("countByStatus",
+                        () -> patientRepository.countByStatus(Status.INACTIVE), INACTIVE_PARTITIONS, false),
+                check("findPatientsWithFilters(term)",
+                        () -> patientRepository.findPatientsWithFilters(Status.ACTIVE, "patient4240@", page),
+                        ACTIVE_PARTITIONS, false),
+                check("findAllPatientsWithFilters(term)",
+                        () -> patientRepository.findAllPatientsWithFilters("Last1234", page), null, false),
+                check("findCohortRowsAfter",
+                        () -> patientRepository.findCohortRowsAfter(
+                                LocalDateTime.now().minusMinutes(30), "", Limit.of(10_000)), null, false),
+                check("findVersionsByIdIn",
+                        () -> patientRepository.findVersionsByIdIn(List.of(id)), null, false),
+                // Nothing is old enough to archive: the plan must still stay in patients_inactive_current
+                check("archiveInactiveBefore",
+                        () -> patientRepository.archiveInactiveBefore(
+                                LocalDateTime.now().minusYears(1), LocalDateTime.now(), 1_000),
+                        Set.of("patients_inactive_current"), false));
+    }
+
+    @TestFactory
+    Stream<DynamicTest> searchSortFields() {
+        return Stream.of(PatientSortField.values())
+                .flatMap(field -> Stream.of(Sort.Direction.ASC, Sort.Direction.DESC)
+                        .flatMap(direction -> {
+                            PageRequest page = PageRequest.of(0, 20, Sort.by(direction, field.getProperty()));
+                            String suffix = "(" + field.getParameter() + " " + direction + ")";
+                            return Stream.of(
+                                    check("findByStatus" + suffix,
+                                            () -> patientRepository.findByStatus(Status.ACTIVE, page),
+                                            ACTIVE_PARTITIONS, false),
+                                    check("findAll" + suffix,
+                                            () -> patientRepository.findAll(page),
+                                            null, false));
+                        }));
+    }
+
+    private DynamicTest check(String name, Runnable query, Set<String> partitions, boolean expectIndexOnly) {
+        return DynamicTest.dynamicTest(name, () -> {
+            PLANS.clear();
+            query.run();
+            assertThat(PLANS).as("captured plans for %s", name).isNotEmpty();
+
+            for (ExplainingDataSource.CapturedPlan captured : PLANS) {
+                JsonNode root = MAPPER.readTree(captured.planJson()).get(0);
+                JsonNode plan = root.get("Plan");
+                String sql = captured.sql().stripLeading().toLowerCase(Locale.ROOT);
+                // Counting a whole partition (countByStatus, the page total of findByStatus/findAll) has to
+                // visit every row it counts; partition pruning is what keeps those cheap, and that is still
+                // asserted. Counts with a search term go through the trigram indexes like their page query
+                // and get the full checks.
+                boolean unfilteredCount = sql.startsWith("select count") && !sql.contains(" like ");
+
+                List<String> problems = new ArrayList<>();
+                List<JsonNode> nodes = new ArrayList<>();
+                collect(plan, nodes);
+
+                for (JsonNode node : nodes) {
+                    String relation = node.path("Relation Name").asText("");
+                    // An UPDATE's ModifyTable node names the parent table; its scans name the partitions
+                    if (!relation.startsWith("patients") || node.path("Node Type").asText().equals("ModifyTable")) {
+                        continue;
+                    }
+                    if (partitions != null && !partitions.contains(relation)) {
+                        problems.add("scans partition " + relation + ", expected only " + partitions);
+                    }
+                    if (!unfilteredCount && node.path("Node Type").asText().equals("Seq Scan")) {
+                        long examined = (node.path("Actual Rows").asLong() + node.path("Rows Removed by Filter").asLong())
+                                * Math.max(1, node.path("Actual Loops").asLong());
+                        if (examined > MAX_SEQ_SCAN_ROWS) {
+                            problems.add("seq scan on " + relation + " examined " + examined + " rows");
+                        }
+                    }
+                }
+
+                long blocks = plan.path("Shared Hit Blocks").asLong() + plan.path("Shared Read Blocks").asLong();
+                if (!unfilteredCount && blocks > MAX_SHARED_BLOCKS) {
+                    problems.add("touched " + blocks + " shared blocks, budget " + MAX_SHARED_BLOCKS);
+                }
+                if (expectIndexOnly && nodes.stream()
+                        .filter(node -> node.path("Relation Name").asText("").startsWith("patients"))
+                        .anyMatch(node -> !node.path("Node Type").asText().equals("Index Only Scan"))) {
+                    problems.add("expected index-only scans");
+                }
+
+                if (!problems.isEmpty()) {
+                    fail(name + ": " + String.join("; ", problems) + "\nSQL: " + captured.sql() + "\nPlan:\n"
+                            + MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(root));
+                }
+            }
+        });
+    }
+
+    private static void collect(JsonNode node, List<JsonNode> nodes) {
+        nodes.add(node);
+        node.path("Plans").forEach(child -> collect(child, nodes));
+    }
+
+    @TestConfiguration
+    static class ExplainConfig {
+
+        @Bean
+        static BeanPostProcessor explainingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? ExplainingDataSource.wrap(dataSource, PLANS) : bean;
+                }
+            };
+        }
+
+    }
+
+}
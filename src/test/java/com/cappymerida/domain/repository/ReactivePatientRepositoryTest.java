@@ -0,0 +1,116 @@
+package com.cappymerida.domain.repository;
+
+import com.cappymerida.domain.enums.Gender;
+import com.cappymerida.domain.enums.MaritalStatus;
+import com.cappymerida.domain.enums.Relationship;
+import com.cappymerida.domain.enums.Status;
+import com.cappymerida.domain.model.ContactInfo;
+import com.cappymerida.domain.model.Demographics;
+import com.cappymerida.domain.model.EmergencyContact;
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.infrastructure.crypto.SsnCipher;
+import io.r2dbc.spi.Readable;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ReactivePatientRepositoryTest {
+
+    private final SsnCipher ssnCipher = new SsnCipher(true, "k1", "k1:" + key(1), key(2));
+    private final ReactivePatientRepository repository =
+            new ReactivePatientRepository(mock(DatabaseClient.class), ssnCipher);
+
+    @Test
+    void mapsEveryColumnAndDecryptsSsn() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+        LocalDateTime updatedAt = LocalDateTime.of(2025, 6, 7, 8, 9, 10);
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("id", "p-1");
+        columns.put("first_name", "Ana");
+        columns.put("last_name", "López");
+        columns.put("middle_name", "María");
+        columns.put("date_of_birth", LocalDate.of(1980, 5, 1));
+        columns.put("gender", "FEMALE");
+        columns.put("social_security_number", ssnCipher.encrypt("123-45-6789"));
+        columns.put("preferred_language", "es");
+        columns.put("marital_status", "MARRIED");
+        columns.put("contact_email", "ana@example.com");
+        columns.put("contact_phone", "555-0100");
+        columns.put("contact_alt_phone", "555-0102");
+        columns.put("address_street", "Calle 60");
+        columns.put("address_city", "Mérida");
+        columns.put("address_state", "Yucatán");
+        columns.put("address_zip", "97000");
+        columns.put("address_country", "MX");
+        columns.put("emergency_name", "Jorge");
+        columns.put("emergency_phone", "555-0101");
+        columns.put("emergency_email", "jorge@example.com");
+        columns.put("emergency_relationship", "SPOUSE");
+        columns.put("ssn_blind_index", ssnCipher.blindIndex("123-45-6789"));
+        columns.put("status", "INACTIVE");
+        columns.put("created_at", createdAt);
+        columns.put("updated_at", updatedAt);
+        columns.put("version", 7L);
+
+        Patient patient = repository.toPatient(row(columns));
+
+        assertThat(patient.getId()).isEqualTo("p-1");
+        assertThat(patient.getDemographics()).isEqualTo(new Demographics("Ana", "López", "María",
+                LocalDate.of(1980, 5, 1), Gender.FEMALE, "123-45-6789", "es", MaritalStatus.MARRIED));
+        assertThat(patient.getContactInfo()).isEqualTo(new ContactInfo("ana@example.com", "555-0100", "555-0102",
+                "Calle 60", "Mérida", "Yucatán", "97000", "MX"));
+        assertThat(patient.getEmergencyContact()).isEqualTo(new EmergencyContact("Jorge", "555-0101",
+                "jorge@example.com", Relationship.SPOUSE));
+        assertThat(patient.getSsnBlindIndex()).isEqualTo(ssnCipher.blindIndex("123456789"));
+        assertThat(patient.getStatus()).isEqualTo(Status.INACTIVE);
+        assertThat(patient.getCreatedAt()).isEqualTo(createdAt);
+        assertThat(patient.getUpdatedAt()).isEqualTo(updatedAt);
+        assertThat(patient.getVersion()).isEqualTo(7L);
+    }
+
+    @Test
+    void mapsNullColumnsToNull() {
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("id", "p-2");
+        columns.put("first_name", "Luis");
+        columns.put("last_name", "Pech");
+        columns.put("status", "ACTIVE");
+
+        Patient patient = repository.toPatient(row(columns));
+
+        assertThat(patient.getDemographics().getGender()).isNull();
+        assertThat(patient.getDemographics().getMaritalStatus()).isNull();
+        assertThat(patient.getDemographics().getSocialSecurityNumber()).isNull();
+        assertThat(patient.getEmergencyContact().getRelationship()).isNull();
+        assertThat(patient.getVersion()).isNull();
+    }
+
+    private static Readable row(Map<String, Object> columns) {
+        return new Readable() {
+            @Override
+            public <T> T get(int index, Class<T> type) {
+                throw new UnsupportedOperationException("toPatient reads columns by name");
+            }
+
+            @Override
+            public <T> T get(String name, Class<T> type) {
+                return type.cast(columns.get(name));
+            }
+        };
+    }
+
+    private static String key(int seed) {
+        byte[] key = new byte[32];
+        key[0] = (byte) seed;
+        return Base64.getEncoder().encodeToString(key);
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.cappymerida.infrastructure.config;
+
+import com.cappymerida.domain.exceptions.PatientVersionConflictException;
+import com.cappymerida.domain.records.VersionConflictResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    void answersAVersionConflictWithTheCurrentVersion() {
+        ResponseEntity<VersionConflictResponse> response =
+                handler.handlePatientVersionConflict(new PatientVersionConflictException("p-1", 5L));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"5\"");
+
+        VersionConflictResponse body = response.getBody();
+        assertThat(body).isNotNull();
+        assertThat(body.code()).isEqualTo("PATIENT_VERSION_CONFLICT");
+        assertThat(body.message()).isEqualTo("Patient was modified concurrently");
+        assertThat(body.patientId()).isEqualTo("p-1");
+        assertThat(body.currentVersion()).isEqualTo(5L);
+        assertThat(body.timestamp()).isNotNull();
+    }
+
+    @Test
+    void omitsTheETagWhenTheCurrentVersionIsUnknown() {
+        ResponseEntity<VersionConflictResponse> response =
+                handler.handlePatientVersionConflict(new PatientVersionConflictException("p-1", null));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getHeaders().getETag()).isNull();
+        assertThat(response.getBody()).extracting(VersionConflictResponse::currentVersion).isNull();
+    }
+
+}
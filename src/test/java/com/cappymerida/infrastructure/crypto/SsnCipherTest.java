@@ -0,0 +1,94 @@
+package com.cappymerida.infrastructure.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SsnCipherTest {
+
+    private static final String OLD_KEY = "old:" + key(1);
+    private static final String NEW_KEY = "new:" + key(2);
+    private static final String INDEX_KEY = key(3);
+
+    @Test
+    void encryptsWithRandomIvAndDecrypts() {
+        SsnCipher cipher = new SsnCipher(true, "new", OLD_KEY + "," + NEW_KEY, INDEX_KEY);
+
+        String first = cipher.encrypt("123-45-6789");
+        String second = cipher.encrypt("123-45-6789");
+
+        assertThat(first).startsWith("enc:v1:new:").doesNotContain("6789").isNotEqualTo(second);
+        assertThat(cipher.decrypt(first)).isEqualTo("123-45-6789");
+        assertThat(cipher.decrypt(second)).isEqualTo("123-45-6789");
+        assertThat(cipher.isCurrent(first)).isTrue();
+    }
+
+    @Test
+    void readsValuesSealedWithRetiredKeysAndLegacyPlaintext() {
+        String sealedWithOld = new SsnCipher(true, "old", OLD_KEY, INDEX_KEY).encrypt("123-45-6789");
+        SsnCipher cipher = new SsnCipher(true, "new", OLD_KEY + "," + NEW_KEY, INDEX_KEY);
+
+        assertThat(cipher.decrypt(sealedWithOld)).isEqualTo("123-45-6789");
+        assertThat(cipher.isCurrent(sealedWithOld)).isFalse();
+        assertThat(cipher.decrypt("123-45-6789")).isEqualTo("123-45-6789");
+        assertThat(cipher.isCurrent("123-45-6789")).isFalse();
+    }
+
+    @Test
+    void rejectsTamperedKeyId() {
+        SsnCipher cipher = new SsnCipher(true, "new", OLD_KEY + "," + NEW_KEY, INDEX_KEY);
+        String relabelled = cipher.encrypt("123-45-6789").replace("enc:v1:new:", "enc:v1:old:");
+
+        assertThatThrownBy(() -> cipher.decrypt(relabelled)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rejectsMalformedEnvelope() {
+        SsnCipher cipher = new SsnCipher(true, "new", OLD_KEY + "," + NEW_KEY, INDEX_KEY);
+
+        assertThatThrownBy(() -> cipher.decrypt("enc:v1:"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Malformed");
+        assertThatThrownBy(() -> cipher.decrypt("enc:v1:new"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Malformed");
+        assertThatThrownBy(() -> cipher.decrypt("enc:v1:new:not base64!"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Malformed");
+        assertThatThrownBy(() -> cipher.decrypt("enc:v1:new:AAAA"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Malformed");
+    }
+
+    @Test
+    void blindIndexIsKeyedAndIgnoresFormatting() {
+        SsnCipher cipher = new SsnCipher(true, "new", NEW_KEY, INDEX_KEY);
+        SsnCipher otherIndexKey = new SsnCipher(true, "new", NEW_KEY, key(4));
+
+        assertThat(cipher.blindIndex("123-45-6789"))
+                .hasSize(64)
+                .isEqualTo(cipher.blindIndex("123456789"))
+                .isNotEqualTo(cipher.blindIndex("123-45-6780"))
+                .isNotEqualTo(otherIndexKey.blindIndex("123-45-6789"));
+    }
+
+    @Test
+    void storesPlaintextWhenDisabled() {
+        SsnCipher cipher = new SsnCipher(false, "", "", INDEX_KEY);
+
+        assertThat(cipher.encrypt("123-45-6789")).isEqualTo("123-45-6789");
+        assertThat(cipher.isCurrent("123-45-6789")).isTrue();
+        assertThat(cipher.blindIndex("123-45-6789")).hasSize(64);
+    }
+
+    private static String key(int seed) {
+        byte[] key = new byte[32];
+        Arrays.fill(key, (byte) seed);
+        return Base64.getEncoder().encodeToString(key);
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.cappymerida.infrastructure.crypto;
+
+import com.cappymerida.domain.enums.Gender;
+import com.cappymerida.domain.model.ContactInfo;
+import com.cappymerida.domain.model.Demographics;
+import com.cappymerida.domain.model.Patient;
+import com.cappymerida.domain.repository.PatientRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Create (uniqueness check + insert) and lookup-by-SSN latency through JPA against
+ * Postgres, with SSN encryption on and off. The blind index is maintained in both
+ * modes, so the difference is the AES-GCM cost on write and read.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(SsnCipher.class)
+class SsnEncryptionBenchmark {
+
+    private static final int WARMUP = 500;
+    private static final int ITERATIONS = 2_000;
+    // "Microseconds, not milliseconds": encryption may not add a millisecond per operation
+    private static final double MAX_OVERHEAD_NANOS = 1_000_000;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final Map<Boolean, Result> RESULTS = new ConcurrentHashMap<>();
+
+    record Result(double createNanos, double lookupNanos) {}
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @AfterAll
+    static void report() {
+        Result on = RESULTS.get(true);
+        Result off = RESULTS.get(false);
+        if (on == null || off == null) {
+            return;
+        }
+
+        System.out.printf("SSN create: off %.0f us/op, on %.0f us/op; lookup: off %.0f us/op, on %.0f us/op%n",
+                off.createNanos() / 1_000, on.createNanos() / 1_000,
+                off.lookupNanos() / 1_000, on.lookupNanos() / 1_000);
+        assertThat(on.createNanos() - off.createNanos()).isLessThan(MAX_OVERHEAD_NANOS);
+        assertThat(on.lookupNanos() - off.lookupNanos()).isLessThan(MAX_OVERHEAD_NANOS);
+    }
+
+    abstract class Scenario {
+
+        @Autowired
+        private PatientRepository patientRepository;
+
+        @Autowired
+        private SsnCipher ssnCipher;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Test
+        void createAndLookup() {
+            String prefix = ssnCipher.isEnabled() ? "9" : "8";
+            run(prefix + "0", WARMUP);
+            Result result = run(prefix + "1", ITERATIONS);
+            RESULTS.put(ssnCipher.isEnabled(), result);
+
+            String stored = jdbcTemplate.queryForObject(
+                    "SELECT social_security_number FROM patients WHERE ssn_blind_index = ?",
+                    String.class, ssnCipher.blindIndex(ssn(prefix + "1", 0)));
+            assertThat(stored.startsWith("enc:")).isEqualTo(ssnCipher.isEnabled());
+        }
+
+        private Result run(String prefix, int count) {
+            long createNanos = 0;
+            for (int i = 0; i < count; i++) {
+                String ssn = ssn(prefix, i);
+                long start = System.nanoTime();
+                // Same steps as PatientService.createPatient
+                if (!patientRepository.existsBySsnBlindIndex(ssnCipher.blindIndex(ssn))) {
+                    patientRepository.save(patient(ssn));
+                }
+                createNanos += System.nanoTime() - start;
+            }
+
+            long lookupNanos = 0;
+            for (int i = 0; i < count; i++) {
+                String ssn = ssn(prefix, i);
+                long start = System.nanoTime();
+                List<Patient> found = patientRepository.findBySsnBlindIndex(ssnCipher.blindIndex(ssn));
+                lookupNanos += System.nanoTime() - start;
+                assertThat(found).singleElement()
+                        .extracting(patient -> patient.getDemographics().getSocialSecurityNumber())
+                        .isEqualTo(ssn);
+            }
+            return new Result((double) createNanos / count, (double) lookupNanos / count);
+        }
+
+        private static String ssn(String prefix, int i) {
+            String digits = prefix + String.format("%07d", i);
+            return digits.substring(0, 3) + "-" + digits.substring(3, 5) + "-" + digits.substring(5);
+        }
+
+        private static Patient patient(String ssn) {
+            Patient patient = new Patient();
+            patient.setDemographics(new Demographics("Bench", "Mark", null, LocalDate.of(1980, 1, 1), Gender.OTHER,
+                    ssn, null, null));
+            patient.setContactInfo(new ContactInfo());
+            return patient;
+        }
+
+    }
+
+    @Nested
+    @TestPropertySource(properties = "patients.ssn-encryption.enabled=true")
+    class EncryptionOn extends Scenario {
+    }
+
+    @Nested
+    @TestPropertySource(properties = "patients.ssn-encryption.enabled=false")
+    class EncryptionOff extends Scenario {
+    }
+
+}
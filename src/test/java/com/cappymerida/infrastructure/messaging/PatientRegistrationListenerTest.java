@@ -0,0 +1,133 @@
+package com.cappymerida.infrastructure.messaging;
+
+import com.cappymerida.application.service.PatientIngestionService;
+import com.cappymerida.domain.model.IngestionResult;
+import com.cappymerida.domain.model.PatientIngestionRecord;
+import com.cappymerida.infrastructure.config.KafkaIngestionConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@SpringJUnitConfig
+@EmbeddedKafka(partitions = 1, topics = {PatientRegistrationListenerTest.TOPIC, PatientRegistrationListenerTest.DEAD_LETTER_TOPIC})
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.consumer.group-id=ingestion-test",
+        "spring.kafka.consumer.auto-offset-reset=earliest",
+        "spring.kafka.listener.type=batch",
+        "spring.kafka.listener.ack-mode=batch",
+        "patients.ingestion.topic=" + PatientRegistrationListenerTest.TOPIC,
+        "patients.ingestion.dead-letter-topic=" + PatientRegistrationListenerTest.DEAD_LETTER_TOPIC,
+        "patients.ingestion.retry.initial-interval=10ms"
+})
+class PatientRegistrationListenerTest {
+
+    static final String TOPIC = "adt.registrations.test";
+    static final String DEAD_LETTER_TOPIC = "adt.registrations.test.dlt";
+
+    @Configuration
+    @ImportAutoConfiguration({KafkaAutoConfiguration.class, JacksonAutoConfiguration.class,
+            ValidationAutoConfiguration.class})
+    @Import({PatientRegistrationListener.class, KafkaIngestionConfig.class})
+    static class Config {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+    }
+
+    @MockitoBean
+    private PatientIngestionService ingestionService;
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Test
+    void upsertsValidRecordsAndDeadLettersInvalidAndRejectedOnesOnce() {
+        List<PatientIngestionRecord> ingested = new CopyOnWriteArrayList<>();
+        when(ingestionService.upsertPatients(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("database unavailable"))
+                .thenAnswer(invocation -> {
+                    List<PatientIngestionRecord> batch = invocation.getArgument(0);
+                    List<IngestionResult.Rejection> rejected = batch.stream()
+                            .filter(record -> record.externalId().equals("ADT-4"))
+                            .map(record -> new IngestionResult.Rejection(record, "Email already exists"))
+                            .toList();
+                    batch.stream().filter(record -> !record.externalId().equals("ADT-4")).forEach(ingested::add);
+                    return new IngestionResult(batch.size() - rejected.size(), 0, 0, 0, rejected);
+                });
+
+        kafkaTemplate.send(TOPIC, "ADT-1", registration("ADT-1", 1, "Ana"));
+        kafkaTemplate.send(TOPIC, "ADT-1", registration("ADT-1", 2, "Ana Maria"));
+        kafkaTemplate.send(TOPIC, "ADT-2", "{not json");
+        kafkaTemplate.send(TOPIC, "ADT-3", "{\"externalId\": \"ADT-3\", \"version\": 1}");
+        kafkaTemplate.send(TOPIC, "ADT-4", registration("ADT-4", 1, "Rosa"));
+
+        await().atMost(Duration.ofSeconds(20)).untilAsserted(() -> assertThat(ingested)
+                .extracting(PatientIngestionRecord::externalId, PatientIngestionRecord::sourceVersion)
+                .containsExactly(
+                        tuple("ADT-1", 1L),
+                        tuple("ADT-1", 2L)));
+        assertThat(ingested.get(1).patient().getDemographics().getFirstName()).isEqualTo("Ana Maria");
+
+        Map<String, Object> props = KafkaTestUtils.consumerProps("dlt-reader", "false", broker);
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<String, String>(props).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, DEAD_LETTER_TOPIC);
+            List<ConsumerRecord<String, String>> records = new ArrayList<>();
+            KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(20), 3).forEach(records::add);
+            // The failed first attempt must not have published the invalid records a second time
+            consumer.poll(Duration.ofSeconds(2)).forEach(records::add);
+
+            assertThat(records).extracting(ConsumerRecord::key).containsExactlyInAnyOrder("ADT-2", "ADT-3", "ADT-4");
+            assertThat(records).allSatisfy(record -> assertThat(
+                    new String(record.headers().lastHeader(PatientRegistrationListener.ERROR_HEADER).value(),
+                            StandardCharsets.UTF_8)).isNotBlank());
+        }
+    }
+
+    private static String registration(String externalId, long version, String firstName) {
+        return """
+                {"externalId": "%s", "version": %d, "status": "ACTIVE",
+                 "demographics": {"firstName": "%s", "lastName": "Lopez", "dateOfBirth": "1980-05-01", "gender": "FEMALE"},
+                 "contactInfo": {"email": "%s@example.com", "city": "Merida"}}
+                """.formatted(externalId, version, firstName, externalId.toLowerCase());
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.cappymerida.web.controller;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Holds N concurrent search requests open against the v1 (servlet/JPA) and v2
+ * (reactive/R2DBC) APIs of a running instance and samples the server's live
+ * threads and used heap while they are in flight. Both APIs get the same query
+ * (same status default, sort, page and size), so they return the same rows and
+ * only the serving model differs.
+ *
+ * <pre>
+ * ./gradlew benchmark -Dbenchmark.baseUrl=http://localhost:8180 -Dbenchmark.token=&lt;jwt&gt;
+ * </pre>
+ */
+@Tag("benchmark")
+class PatientApiConcurrencyBenchmark {
+
+    private static final int[] CONCURRENCY = {100, 500, 2000};
+    private static final String SEARCH_QUERY = "?page=0&size=200&sortBy=createdAt&sortDir=desc";
+    private static final Pattern METRIC_VALUE = Pattern.compile("\"value\"\\s*:\\s*([0-9.Ee+-]+)");
+
+    private final String baseUrl = System.getProperty("benchmark.baseUrl");
+    private final String token = System.getProperty("benchmark.token");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    @Test
+    void concurrencyVersusServerMemory() throws Exception {
+        assumeTrue(baseUrl != null && token != null, "benchmark.baseUrl and benchmark.token are required");
+
+        System.out.println("api | concurrent | live threads | heap used (MB) | ok");
+        for (int concurrency : CONCURRENCY) {
+            run("v1", "/api/v1/patients" + SEARCH_QUERY, "application/json", concurrency);
+            run("v2", "/api/v2/patients" + SEARCH_QUERY, "application/json", concurrency);
+        }
+    }
+
+    private void run(String api, String path, String accept, int concurrency) throws Exception {
+        List<CompletableFuture<HttpResponse<Void>>> inFlight = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Accept", accept)
+                    .timeout(Duration.ofMinutes(5))
+                    .build();
+            inFlight.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+
+        // Sample while requests are being served
+        Thread.sleep(2000);
+        double threads = metric("jvm.threads.live", null);
+        double heap = metric("jvm.memory.used", "area:heap") / (1024 * 1024);
+
+        long ok = inFlight.stream()
+                .map(CompletableFuture::join)
+                .filter(response -> response.statusCode() == 200)
+                .count();
+
+        System.out.printf("%s | %d | %.0f | %.1f | %d%n", api, concurrency, threads, heap, ok);
+    }
+
+    private double metric(String name, String tag) throws Exception {
+        String url = baseUrl + "/actuator/metrics/" + name + (tag != null ? "?tag=" + tag : "");
+        String body = client.send(HttpRequest.newBuilder(URI.create(url)).build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        Matcher matcher = METRIC_VALUE.matcher(body);
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : Double.NaN;
+    }
+
+}